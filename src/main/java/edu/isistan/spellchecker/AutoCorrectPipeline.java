@@ -0,0 +1,213 @@
+package edu.isistan.spellchecker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+
+/**
+ * Correccion automatica de un archivo en streaming, para documentos mucho mas grandes que el heap.
+ * <p>
+ * El trabajo se divide en cuatro etapas, cada una en su propio thread, que se pasan lotes de tokens
+ * por colas acotadas: tokenizar -> buscar en el diccionario -> corregir -> escribir.
+ * <ul>
+ * <li> La memoria usada es acotada: a lo sumo {@link #QUEUE_CAPACITY} lotes de {@link #BATCH_SIZE} tokens
+ * por cola, sin importar el tamanio del archivo.
+ * <li> Si una etapa se atrasa, las colas llenas frenan a las anteriores (backpressure).
+ * <li> Cada etapa procesa los lotes en orden, asi que la salida respeta el orden del documento.
+ * <li> La entrada y la salida usan FileChannels con buffers grandes. Los bytes invalidos de la entrada se
+ * reemplazan en lugar de cortar el proceso.
+ * <li> Si una etapa falla se interrumpen las demas y el error se propaga como IOException.
+ * </ul>
+ *
+ * @see SpellChecker#autoCorrect
+ */
+class AutoCorrectPipeline {
+	static final int BATCH_SIZE = 4096;
+	static final int QUEUE_CAPACITY = 8;
+	static final int IO_BUFFER = 1 << 20;
+
+	private static final byte OTHER = 0;
+	private static final byte KNOWN = 1;
+	private static final byte UNKNOWN = 2;
+
+	/**
+	 * Marca el fin del documento.
+	 */
+	private static final Batch END = new Batch(0);
+
+	private final IDictionary dict;
+	private final Corrector corr;
+	private final UnknownWordPolicy policy;
+	private final Charset charset;
+
+	AutoCorrectPipeline(IDictionary dict, Corrector corr, UnknownWordPolicy policy, Charset charset) {
+		this.dict = dict;
+		this.corr = corr;
+		this.policy = policy;
+		this.charset = charset;
+	}
+
+	/**
+	 * Lote de tokens que pasa de etapa en etapa. Cada lote lo usa una sola etapa a la vez.
+	 */
+	private static final class Batch {
+		private final String[] tokens;
+		private final byte[] kinds;
+		private final String[] replacements;
+		private int size;
+
+		Batch(int capacity) {
+			this.tokens = new String[capacity];
+			this.kinds = new byte[capacity];
+			this.replacements = new String[capacity];
+		}
+
+		boolean add(String token) {
+			tokens[size++] = token;
+			return size == tokens.length;
+		}
+	}
+
+	/**
+	 * @param in documento a corregir
+	 * @param out documento corregido
+	 * @param report reporte de palabras sin correccion, o null si la politica no es REPORT
+	 */
+	DocumentStats run(Path in, Path out, Path report) throws IOException {
+		DocumentStats stats = new DocumentStats(in);
+		long start = System.nanoTime();
+		BlockingQueue<Batch> tokenized = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		BlockingQueue<Batch> looked = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		BlockingQueue<Batch> corrected = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (TokenScanner tokenScanner = new TokenScanner(
+					Channels.newReader(FileChannel.open(in, StandardOpenOption.READ), decoder, IO_BUFFER), IO_BUFFER);
+			 Writer writer = new BufferedWriter(Channels.newWriter(FileChannel.open(out, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), charset.newEncoder(), IO_BUFFER), IO_BUFFER);
+			 Writer reportWriter = report == null ? null : Files.newBufferedWriter(report, charset)) {
+			tokenScanner.setName("TokenScannerAutoCorrect");
+
+			ExecutorCompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+			stages.submit(() -> tokenize(tokenScanner, tokenized));
+			stages.submit(() -> lookup(tokenized, looked));
+			stages.submit(() -> correct(looked, corrected, stats, reportWriter));
+			stages.submit(() -> write(corrected, writer));
+			for (int i = 0; i < 4; i++) {
+				stages.take().get();
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Correccion interrumpida");
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+			throw new IOException(cause);
+		} finally {
+			//si una etapa fallo, las demas pueden estar bloqueadas en una cola
+			executor.shutdownNow();
+		}
+		stats.finished(System.nanoTime() - start);
+		return stats;
+	}
+
+	private Void tokenize(TokenScanner tokenScanner, BlockingQueue<Batch> output) throws InterruptedException {
+		Batch batch = new Batch(BATCH_SIZE);
+		while (tokenScanner.hasNext()) {
+			if (batch.add(tokenScanner.next())) {
+				output.put(batch);
+				batch = new Batch(BATCH_SIZE);
+			}
+		}
+		if (batch.size > 0) output.put(batch);
+		output.put(END);
+		return null;
+	}
+
+	private Void lookup(BlockingQueue<Batch> input, BlockingQueue<Batch> output) throws InterruptedException {
+		Batch batch;
+		while ((batch = input.take()) != END) {
+			for (int i = 0; i < batch.size; i++) {
+				String token = batch.tokens[i];
+				if (!TokenScanner.isWord(token)) batch.kinds[i] = OTHER;
+				else batch.kinds[i] = dict.isWord(token) ? KNOWN : UNKNOWN;
+			}
+			output.put(batch);
+		}
+		output.put(END);
+		return null;
+	}
+
+	private Void correct(BlockingQueue<Batch> input, BlockingQueue<Batch> output, DocumentStats stats, Writer report)
+			throws InterruptedException, IOException {
+		long line = 1;
+		Batch batch;
+		while ((batch = input.take()) != END) {
+			for (int i = 0; i < batch.size; i++) {
+				String token = batch.tokens[i];
+				byte kind = batch.kinds[i];
+				stats.tokenRead(kind != OTHER);
+				if (kind == OTHER) {
+					line += countNewLines(token);
+				} else if (kind == UNKNOWN) {
+					List<String> correcciones = corr.getTopCorrections(token, 1);
+					stats.unknownWord(!correcciones.isEmpty());
+					if (!correcciones.isEmpty()) {
+						batch.replacements[i] = correcciones.get(0);
+					} else if (policy == UnknownWordPolicy.MARK) {
+						batch.replacements[i] = Utils.wrap(token);
+					} else if (policy == UnknownWordPolicy.REPORT) {
+						report.write(line + "\t" + token + "\n");
+					}
+				}
+			}
+			output.put(batch);
+		}
+		output.put(END);
+		return null;
+	}
+
+	private Void write(BlockingQueue<Batch> input, Writer out) throws InterruptedException, IOException {
+		Batch batch;
+		while ((batch = input.take()) != END) {
+			for (int i = 0; i < batch.size; i++) {
+				String replacement = batch.replacements[i];
+				out.write(replacement != null ? replacement : batch.tokens[i]);
+			}
+		}
+		return null;
+	}
+
+	private static int countNewLines(String token) {
+		int count = 0;
+		for (int i = 0; i < token.length(); i++) {
+			if (token.charAt(i) == '\n') count++;
+		}
+		return count;
+	}
+}
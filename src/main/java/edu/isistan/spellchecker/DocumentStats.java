@@ -0,0 +1,101 @@
+package edu.isistan.spellchecker;
+
+import java.nio.file.Path;
+
+/**
+ * Estadisticas del chequeo de un documento en modo batch.
+ * <p>
+ * Los contadores se actualizan desde un solo thread (el que chequea el documento) y se leen
+ * cuando el chequeo termino.
+ *
+ * @see SpellChecker#checkDocuments
+ */
+public class DocumentStats {
+    private final Path document;
+    private long tokens;
+    private long words;
+    private long unknownWords;
+    private long corrected;
+    private long elapsedNanos;
+    private String error;
+
+    public DocumentStats(Path document) {
+        this.document = document;
+    }
+
+    void tokenRead(boolean isWord) {
+        tokens++;
+        if (isWord) words++;
+    }
+
+    void unknownWord(boolean wasCorrected) {
+        unknownWords++;
+        if (wasCorrected) corrected++;
+    }
+
+    void finished(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    void failed(String error) {
+        this.error = error;
+    }
+
+    public Path getDocument() {
+        return document;
+    }
+
+    /**
+     * @return cantidad de tokens, palabras o no
+     */
+    public long getTokens() {
+        return tokens;
+    }
+
+    public long getWords() {
+        return words;
+    }
+
+    /**
+     * @return palabras que no estaban en el diccionario
+     */
+    public long getUnknownWords() {
+        return unknownWords;
+    }
+
+    /**
+     * @return palabras desconocidas que fueron reemplazadas por una correccion
+     */
+    public long getCorrected() {
+        return corrected;
+    }
+
+    /**
+     * @return palabras desconocidas sin correccion, que se dejaron como estaban
+     */
+    public long getUncorrected() {
+        return unknownWords - corrected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return true si el documento no pudo chequearse (ver {@link #getError()})
+     */
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        if (isFailed()) return document + ": error " + Utils.wrap(error);
+        return document + ": " + tokens + " tokens, " + words + " words, " + unknownWords + " unknown, "
+                + corrected + " corrected (" + elapsedNanos / 1_000_000 + " ms)";
+    }
+}
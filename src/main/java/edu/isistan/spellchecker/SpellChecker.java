@@ -1,12 +1,26 @@
 package edu.isistan.spellchecker;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.isistan.spellchecker.corrector.Corrector;
 import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.metrics.Counter;
+import edu.isistan.spellchecker.metrics.Metrics;
 import edu.isistan.spellchecker.tokenizer.TokenScanner;
 
 /**
@@ -19,12 +33,35 @@ import edu.isistan.spellchecker.tokenizer.TokenScanner;
  * <ul>
  * <li> La implementacion provista provee metodos utiles para implementar el SpellChecker.
  * <li> Toda la salida al usuario deben enviarse a System.out (salida estandar)
+ * <li> Los mensajes de diagnostico van al {@link Log}, nunca a System.out. Los del loop por token
+ * son de nivel TRACE/DEBUG y se arman solo si ese nivel esta habilitado.
  * </ul>
  * <p>
+ * Para procesar muchos documentos sin interaccion ver {@link #checkDocuments}, y para archivos
+ * mas grandes que la memoria ver {@link #autoCorrect}.
+ * <p>
+ * Con las {@link Metrics} habilitadas, cada documento suma sus tokens, palabras y palabras desconocidas en
+ * {@code spellchecker.tokens}, {@code spellchecker.words} y {@code spellchecker.unknown}. El corrector y
+ * el diccionario se usan tal cual llegan: para medirlos, quien los arma los envuelve con
+ * {@link edu.isistan.spellchecker.corrector.MeteredCorrector#wrap} y
+ * {@link edu.isistan.spellchecker.corrector.dictionary.MeteredDictionary#wrap} (el SpellCheckerRunner
+ * lo hace antes de agregar el cache, asi cada consulta se mide una sola vez).
+ * <p>
  * El SpellChecker es usado por el SpellCheckerRunner. Ver:
  * @see SpellCheckerRunner
  */
 public class SpellChecker {
+	private static final Log LOG = Log.getLog(SpellChecker.class);
+
+	private static final Counter TOKENS = Metrics.counter("spellchecker.tokens");
+	private static final Counter WORDS = Metrics.counter("spellchecker.words");
+	private static final Counter UNKNOWN = Metrics.counter("spellchecker.unknown");
+	private static final Counter CORRECTED = Metrics.counter("spellchecker.corrected");
+
+	static {
+		Metrics.gauge("spellchecker.unknownRate", () -> WORDS.get() == 0 ? 0 : (double) UNKNOWN.get() / WORDS.get());
+	}
+
 	private final Corrector corr;
 	private final IDictionary dict;
 
@@ -58,7 +95,7 @@ public class SpellChecker {
 			} catch (NumberFormatException ex) {
 				// Was not a number. Ignore and prompt again.
 			}
-			spellCheckerLog("Entrada invalida. Pruebe de nuevo!");
+			prompt("Entrada invalida. Pruebe de nuevo!");
 		}
 	}
 
@@ -86,49 +123,197 @@ public class SpellChecker {
 	 * @throws IOException si se produce algun error leyendo el documento.
 	 */
 	public void checkDocument(Reader in, InputStream input, Writer out) throws IOException {
-		spellCheckerLog("Iniciando");
+		LOG.debug("Iniciando");
 
         try (TokenScanner tokenScanner = new TokenScanner(in);
 			 BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
             tokenScanner.setName("TokenScannerFileIn"); //para logging
             checkDocumentDo(tokenScanner, reader, out);
         } catch (IOException ioe) {
-            spellCheckerLog("Error escribiendo o leyendo: " + ioe.getMessage() + "\nRethrow:\n");
+            LOG.error("Error escribiendo o leyendo: " + ioe.getMessage());
             throw ioe;
         } catch (NoSuchElementException nse) {
-            spellCheckerLog("Se ha llegado al final del documento");
+            LOG.debug("Se ha llegado al final del documento");
         } catch (Exception e) {
-            spellCheckerLog("Error: " + e.getMessage());
+            LOG.error("Error: " + e.getMessage());
         }
-		spellCheckerLog("Documento chequeado.");
+		LOG.info("Documento chequeado.");
 	}
 
 	private void checkDocumentDo(TokenScanner tokenScanner, BufferedReader reader, Writer out) throws IOException {
+		//se cuenta en locales y se suma a las metricas una vez por documento
+		long tokens = 0, words = 0, unknown = 0, corrected = 0;
 		while (tokenScanner.hasNext()) {
 			String token = tokenScanner.next();
-			spellCheckerLog("\t1. Got token " + Utils.wrap(token));
+			tokens++;
+			if (LOG.isTraceEnabled()) LOG.trace("1. Got token " + Utils.wrap(token));
 			if (TokenScanner.isWord(token)) {
+				words++;
 				if (dict.isWord(token)) { // la considero como correcta si esta en el diccionario
 					out.write(token);
 				} else { //y si no, la intento corregir
-					spellCheckerLog("\t2. Getting correcciones for token " + Utils.wrap(token));
-					Set<String> correcciones = corr.getCorrections(token);
-					if (correcciones != null && !correcciones.isEmpty()) {
-						String correccion = corr.getCorrections(token).stream().findFirst().orElse(Utils.wrap(token));
+					unknown++;
+					if (LOG.isTraceEnabled()) LOG.trace("2. Getting correcciones for token " + Utils.wrap(token));
+					List<String> correcciones = corr.getTopCorrections(token, 1);
+					if (!correcciones.isEmpty()) {
+						corrected++;
+						String correccion = correcciones.get(0);
 						//una correccion fue encontrada
-						spellCheckerLog("\t3. Usamos " + Utils.wrap(correccion));
+						if (LOG.isDebugEnabled()) LOG.debug("3. Usamos " + Utils.wrap(correccion) + " para " + Utils.wrap(token));
 						out.write(correccion);
 					} else {
-						spellCheckerLog("\t3. No hay correcciones. Ingresela por consola");
+						prompt("No hay correcciones para " + Utils.wrap(token) + ". Ingresela por consola");
 						String correccion = readNext(reader);
 						out.write(correccion);
-						spellCheckerLog("\t3. Correccion manual: " + Utils.wrap(token) + " -> " + correccion);
+						if (LOG.isDebugEnabled()) LOG.debug("3. Correccion manual: " + Utils.wrap(token) + " -> " + correccion);
 					}
 				}
 			} else { //Si no es una palabra del diccionario, la agrego.
 				out.write(token);
 			}
 		}
+		recordMetrics(tokens, words, unknown, corrected);
+	}
+
+	/**
+	 * Chequea varios documentos en paralelo, sin interaccion con el usuario.
+	 * <p>
+	 * Cada documento se escribe en {@code outDir} con el mismo nombre de archivo. Antes de empezar se
+	 * verifica que dos documentos no vayan al mismo archivo de salida y que ninguno se escriba sobre si mismo
+	 * (por ejemplo si {@code outDir} es su propio directorio). Las palabras
+	 * desconocidas se reemplazan por la mejor correccion (ver {@link Corrector#getTopCorrections}); si no hay correcciones se dejan como estaban.
+	 * Todos los workers comparten el diccionario y el corrector, que solo se leen.
+	 * <p>
+	 * Un error en un documento no corta el resto: queda registrado en sus estadisticas.
+	 *
+	 * @param in documentos a chequear
+	 * @param outDir directorio donde se escriben los documentos corregidos
+	 * @param parallelism cantidad de threads
+	 * @return las estadisticas de cada documento, en el mismo orden que {@code in}
+	 * @throws IOException si no se puede crear el directorio de salida
+	 * @throws IllegalArgumentException si parallelism es menor a 1, si dos documentos tienen el mismo nombre
+	 * de archivo o si la salida de un documento es el documento mismo
+	 */
+	public List<DocumentStats> checkDocuments(Collection<Path> in, Path outDir, int parallelism) throws IOException {
+		if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1");
+		Files.createDirectories(outDir);
+		List<Path> outputs = outputPaths(in, outDir);
+		LOG.info("Chequeando " + in.size() + " documentos con " + parallelism + " threads");
+
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<Future<DocumentStats>> futures = new ArrayList<>();
+			int i = 0;
+			for (Path document: in) {
+				Path output = outputs.get(i++);
+				futures.add(executor.submit(() -> checkDocumentBatch(document, output)));
+			}
+			List<DocumentStats> stats = new ArrayList<>();
+			for (Future<DocumentStats> future: futures) {
+				stats.add(future.get());
+			}
+			return stats;
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Batch interrumpido");
+		} catch (ExecutionException ee) {
+			//checkDocumentBatch captura los errores de cada documento, esto no deberia pasar
+			throw new IOException(ee.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return el archivo de salida de cada documento, en el mismo orden que {@code in}
+	 * @throws IllegalArgumentException si dos documentos van al mismo archivo o alguno se escribiria sobre si mismo
+	 */
+	private static List<Path> outputPaths(Collection<Path> in, Path outDir) throws IOException {
+		Path dir = outDir.toRealPath();
+		Set<Path> seen = new HashSet<>();
+		List<Path> outputs = new ArrayList<>(in.size());
+		for (Path document: in) {
+			Path output = dir.resolve(document.getFileName());
+			if (!seen.add(output)) {
+				throw new IllegalArgumentException("Two documents would be written to " + output);
+			}
+			//un documento que no existe falla solo, en sus estadisticas
+			if (Files.exists(document) && Files.exists(output) && Files.isSameFile(document, output)) {
+				throw new IllegalArgumentException("Output would overwrite its input: " + document);
+			}
+			outputs.add(output);
+		}
+		return outputs;
+	}
+
+	/**
+	 * Corrige un documento sin interaccion y en streaming: el archivo nunca se carga entero, asi que
+	 * puede ser mucho mas grande que el heap (ver {@link AutoCorrectPipeline}).
+	 * <p>
+	 * Las palabras desconocidas se reemplazan por la mejor correccion. Las que no tienen correccion
+	 * se tratan segun la politica.
+	 *
+	 * @param in documento de entrada
+	 * @param out documento corregido
+	 * @param policy que hacer con las palabras sin correccion
+	 * @param report archivo donde se listan las palabras sin correccion ({@code linea<TAB>palabra}).
+	 * Solo se usa con {@link UnknownWordPolicy#REPORT}.
+	 * @return las estadisticas del documento
+	 * @throws IOException si se produce algun error leyendo o escribiendo
+	 * @throws IllegalArgumentException si la politica es REPORT y no hay archivo de reporte
+	 */
+	public DocumentStats autoCorrect(Path in, Path out, UnknownWordPolicy policy, Path report) throws IOException {
+		Objects.requireNonNull(policy);
+		if (policy == UnknownWordPolicy.REPORT && report == null) {
+			throw new IllegalArgumentException("REPORT policy needs a report file");
+		}
+		LOG.info("Corrigiendo " + in + " (" + policy + ")");
+		AutoCorrectPipeline pipeline = new AutoCorrectPipeline(dict, corr, policy, Charset.defaultCharset());
+		DocumentStats stats = pipeline.run(in, out, policy == UnknownWordPolicy.REPORT ? report : null);
+		recordMetrics(stats);
+		LOG.info(stats.toString());
+		return stats;
+	}
+
+	private DocumentStats checkDocumentBatch(Path document, Path output) {
+		DocumentStats stats = new DocumentStats(document);
+		long start = System.nanoTime();
+		Charset charset = Charset.defaultCharset();
+		try (TokenScanner tokenScanner = new TokenScanner(Files.newBufferedReader(document, charset));
+			 Writer out = Files.newBufferedWriter(output, charset)) {
+			tokenScanner.setName("TokenScanner" + document.getFileName());
+			while (tokenScanner.hasNext()) {
+				String token = tokenScanner.next();
+				boolean isWord = TokenScanner.isWord(token);
+				stats.tokenRead(isWord);
+				if (isWord && !dict.isWord(token)) {
+					List<String> correcciones = corr.getTopCorrections(token, 1);
+					String correccion = correcciones.isEmpty() ? null : correcciones.get(0);
+					stats.unknownWord(correccion != null);
+					out.write(correccion != null ? correccion : token);
+				} else {
+					out.write(token);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Error chequeando " + document + ": " + e.getMessage());
+			stats.failed(String.valueOf(e.getMessage()));
+		}
+		stats.finished(System.nanoTime() - start);
+		recordMetrics(stats);
+		return stats;
+	}
+
+	private static void recordMetrics(DocumentStats stats) {
+		recordMetrics(stats.getTokens(), stats.getWords(), stats.getUnknownWords(), stats.getCorrected());
+	}
+
+	private static void recordMetrics(long tokens, long words, long unknown, long corrected) {
+		if (!Metrics.isEnabled()) return;
+		TOKENS.add(tokens);
+		WORDS.add(words);
+		UNKNOWN.add(unknown);
+		CORRECTED.add(corrected);
 	}
 
 	/**
@@ -143,7 +328,10 @@ public class SpellChecker {
 		return next;
 	}
 
-	private void spellCheckerLog(String text) {
-		System.out.println("\tSpell Checker: " + text);
+	/**
+	 * Mensajes para el usuario en modo interactivo: van siempre a la salida estandar.
+	 */
+	private void prompt(String text) {
+		System.out.println("Spell Checker: " + text);
 	}
 }
@@ -6,13 +6,30 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.corrector.MeteredCorrector;
 import edu.isistan.spellchecker.corrector.dictionary.Dictionary;
+import edu.isistan.spellchecker.corrector.dictionary.DictionarySnapshot;
 import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.MeteredDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.dawg.MappedDawgDictionary;
+import edu.isistan.spellchecker.corrector.impl.CachingCorrector;
 import edu.isistan.spellchecker.corrector.impl.FileCorrector;
 import edu.isistan.spellchecker.corrector.impl.Levenshtein;
+import edu.isistan.spellchecker.corrector.impl.NGramCorrector;
 import edu.isistan.spellchecker.corrector.impl.SwapCorrector;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.log.LogSink;
+import edu.isistan.spellchecker.metrics.Metrics;
+import edu.isistan.spellchecker.server.SpellCheckServer;
 
 /**
  * 
@@ -20,16 +37,43 @@ import edu.isistan.spellchecker.corrector.impl.SwapCorrector;
  * <p>
  * Puede ser usado desde linea de comando:
  * <p>
- * <code>java SpellCheckerRunner {@code in} {@code out} {@code dictionary} {@code corrector}</code>
+ * <code>java SpellCheckerRunner {@code in} {@code out} {@code dictionary} {@code corrector} [opciones]</code>
+ * <p>
+ * o como servidor HTTP (ver SpellCheckServer), sin archivos de entrada y salida:
+ * <p>
+ * <code>java SpellCheckerRunner {@code dictionary} {@code corrector} --server[=puerto] [opciones]</code>
  * <p>
  * @param in - archivo de entrada
  * @param out - archivo de salida
- * @param dictionary - diccionario.
+ * @param dictionary - diccionario. Si termina en .dawg se abre como DAWG compilado (ver DawgCompiler).
  * @param corrector -  SWAP (para SwapCorrector), 
- * LEV (para Levenshtein), o nombre de archivo (para FileCorrector)
- * 
+ * LEV (para Levenshtein), DAMERAU (Levenshtein que tambien cuenta los swaps),
+ * NGRAM (palabras a distancia dos con un indice de trigramas, ver NGramCorrector),
+ * o nombre de archivo (para FileCorrector)
+ * <p>
+ * Opciones:
+ * <ul>
+ * <li> {@code --cache=LRU[:tamanio]} o {@code --cache=TINY_LFU[:tamanio]}: cachea las correcciones
+ * del corrector elegido (ver CachingCorrector).
+ * <li> {@code --auto[=KEEP|MARK|REPORT]}: corrige sin interaccion y en streaming, para archivos grandes.
+ * Indica que hacer con las palabras sin correccion (ver UnknownWordPolicy). Por defecto KEEP.
+ * <li> {@code --report=archivo}: reporte de palabras sin correccion con {@code --auto=REPORT}.
+ * Por defecto {@code out.report}.
+ * <li> {@code --log=TRACE|DEBUG|INFO|WARN|ERROR|OFF}: nivel de los mensajes de diagnostico (por defecto INFO).
+ * <li> {@code --log-file=archivo}: escribe los mensajes de diagnostico en el archivo en lugar de System.err.
+ * <li> {@code --snapshot[=archivo]}: guarda el diccionario construido en un snapshot binario y lo usa en los
+ * siguientes arranques mientras el archivo de palabras no cambie (ver DictionarySnapshot).
+ * Por defecto {@code dictionary.snap}.
+ * <li> {@code --server[=puerto]}: atiende pedidos HTTP en el puerto (por defecto 8080) hasta que se corta el proceso.
+ * <li> {@code --threads=n}: threads del servidor. Por defecto la cantidad de procesadores.
+ * <li> {@code --metrics[=segundos]}: mide cada etapa (ver Metrics) y la expone por JMX. Con segundos,
+ * ademas vuelca las metricas al log con ese periodo. Al terminar las muestra.
+ * </ul>
  */
 public class SpellCheckerRunner {
+	private static final int DEFAULT_CACHE_SIZE = 10000;
+	private static final int DEFAULT_PORT = 8080;
+
 	/**
 	 * Crea el corrector adecuado dada la entrada de la linea de comando.
 	 * 
@@ -48,24 +92,172 @@ public class SpellCheckerRunner {
 			log("Corrector -> Levenshtein Corrector");
 			return new Levenshtein(dict);
 		}
+		if (type.equals("DAMERAU")) {
+			log("Corrector -> Levenshtein Corrector (con swaps)");
+			return new Levenshtein(dict, true);
+		}
+		if (type.equals("NGRAM")) {
+			log("Corrector -> NGram Corrector");
+			return new NGramCorrector(dict);
+		}
 		log("Corrector -> File Corrector");
 		return FileCorrector.make(type);
 	}
 
+	/**
+	 * Crea el diccionario adecuado segun el archivo: un DAWG compilado se mapea
+	 * a memoria, cualquier otro archivo se parsea como lista de palabras.
+	 *
+	 * @param filename
+	 * @param snapshot archivo de snapshot, o null para no usar snapshot
+	 * @throws IOException
+	 */
+	private static IDictionary makeDictionary(String filename, String snapshot) throws IOException {
+		if (filename.endsWith(".dawg")) {
+			log("Diccionario -> DAWG mapeado a memoria");
+			return MappedDawgDictionary.make(filename);
+		}
+		if (snapshot != null) {
+			String file = snapshot.isEmpty() ? filename + ".snap" : snapshot;
+			log("Diccionario -> trie compacto con snapshot " + file);
+			return DictionarySnapshot.load(Paths.get(filename), Paths.get(file));
+		}
+		return Dictionary.make(filename);
+	}
+
+	/**
+	 * Envuelve el corrector en un CachingCorrector segun la opcion --cache.
+	 *
+	 * @param corrector
+	 * @param spec politica y tamanio opcional, por ejemplo LRU o TINY_LFU:50000
+	 * @throws IllegalArgumentException si la opcion no es valida
+	 */
+	private static Corrector withCache(Corrector corrector, String spec) {
+		String[] parts = spec.split(":");
+		CachingCorrector.Eviction eviction = CachingCorrector.Eviction.valueOf(parts[0].toUpperCase());
+		int size = parts.length > 1 ? Integer.parseInt(parts[1]) : DEFAULT_CACHE_SIZE;
+		log("Corrector -> cache " + eviction + " de " + size + " palabras");
+		return new CachingCorrector(corrector, size, eviction);
+	}
+
+	/**
+	 * Separa los argumentos posicionales de las opciones de la forma --nombre=valor.
+	 *
+	 * @param args argumentos de la linea de comando
+	 * @param positional donde se agregan los argumentos posicionales
+	 * @return las opciones, por nombre
+	 */
+	private static Map<String, String> parseOptions(String[] args, List<String> positional) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg: args) {
+			if (arg.startsWith("--")) {
+				int eq = arg.indexOf('=');
+				if (eq < 0) options.put(arg.substring(2), "");
+				else options.put(arg.substring(2, eq), arg.substring(eq + 1));
+			} else {
+				positional.add(arg);
+			}
+		}
+		return options;
+	}
+
+	private static void usage() {
+		log("uso: java SpellCheckRunner <in> <out> <dictionary> <corrector> [--cache=LRU|TINY_LFU[:tamanio]]"
+				+ " [--auto[=KEEP|MARK|REPORT]] [--report=archivo] [--snapshot[=archivo]] [--log=NIVEL] [--log-file=archivo]"
+				+ " [--metrics[=segundos]]");
+		log("     java SpellCheckRunner <dictionary> <corrector> --server[=puerto] [--threads=n] [--cache=...] [--log=NIVEL]"
+				+ " [--metrics[=segundos]]");
+		log("<corrector> es SWAP, LEV, DAMERAU, NGRAM, or el path para instanciar el FileCorrector.");
+	}
+
+	/**
+	 * Levanta el servidor HTTP. Queda atendiendo hasta que se corta el proceso, y al salir
+	 * informa las latencias.
+	 *
+	 * @param dict
+	 * @param corrector
+	 * @param options opciones --server y --threads
+	 * @throws IOException si no se puede abrir el puerto
+	 */
+	private static void serve(IDictionary dict, Corrector corrector, Map<String, String> options) throws IOException {
+		String port = options.get("server");
+		int threads = options.containsKey("threads") ? Integer.parseInt(options.get("threads"))
+				: Runtime.getRuntime().availableProcessors();
+		SpellCheckServer server = new SpellCheckServer(dict, corrector,
+				new InetSocketAddress(port.isEmpty() ? DEFAULT_PORT : Integer.parseInt(port)), threads);
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		server.start();
+		log("servidor escuchando en el puerto " + server.getPort() + " con " + threads + " threads");
+	}
+
+	/**
+	 * Habilita las metricas segun la opcion --metrics.
+	 *
+	 * @param seconds periodo del volcado al log, o vacio para no volcarlas
+	 */
+	private static void enableMetrics(String seconds) {
+		Metrics.setEnabled(true);
+		Metrics.registerMBean();
+		if (!seconds.isEmpty()) {
+			Metrics.startPeriodicDump(Long.parseLong(seconds), TimeUnit.SECONDS);
+		}
+		log("metricas habilitadas (JMX " + Metrics.OBJECT_NAME + ")");
+	}
+
 	public static void main(String[] args) {
-		if (args.length != 4) {
-			log("uso: java SpellCheckRunner <in> <out> <dictionary> <corrector>");
-			log("<corrector> es SWAP, LEV, or el path para instanciar el FileCorrector.");
+		List<String> positional = new ArrayList<>();
+		Map<String, String> options = parseOptions(args, positional);
+		boolean server = options.containsKey("server");
+		if (positional.size() != (server ? 2 : 4)) {
+			usage();
 			return;
 		}
-		try (Reader in = new BufferedReader(new FileReader(args[0]));
-			Writer out = new BufferedWriter(new FileWriter(args[1]))) {
-						log("inicializando objetos");
-			IDictionary dict = Dictionary.make(args[2]);
-			SpellChecker sp = new SpellChecker(makeCorrector(args[3], dict), dict);
-			log("chequeando documento");
-			sp.checkDocument(in, System.in, out);
+		try {
+			if (options.containsKey("log")) {
+				Log.setLevel(Log.Level.valueOf(options.get("log").toUpperCase()));
+			}
+			if (options.containsKey("log-file")) {
+				Log.setSink(LogSink.toFile(Paths.get(options.get("log-file"))));
+			}
+			if (options.containsKey("metrics")) {
+				enableMetrics(options.get("metrics"));
+			}
+			log("inicializando objetos");
+			int first = server ? 0 : 2;
+			//con metricas, el corrector consulta al diccionario medido y la cache envuelve al corrector medido
+			IDictionary dict = MeteredDictionary.wrap(makeDictionary(positional.get(first), options.get("snapshot")));
+			Corrector corrector = MeteredCorrector.wrap(makeCorrector(positional.get(first + 1), dict));
+			if (options.containsKey("cache")) {
+				corrector = withCache(corrector, options.get("cache"));
+			}
+			if (server) {
+				serve(dict, corrector, options);
+				return;
+			}
+			SpellChecker sp = new SpellChecker(corrector, dict);
+			if (options.containsKey("auto")) {
+				String auto = options.get("auto");
+				UnknownWordPolicy policy = auto.isEmpty() ? UnknownWordPolicy.KEEP : UnknownWordPolicy.valueOf(auto.toUpperCase());
+				String report = options.getOrDefault("report", positional.get(1) + ".report");
+				log("corrigiendo documento sin interaccion");
+				sp.autoCorrect(Paths.get(positional.get(0)), Paths.get(positional.get(1)), policy, Paths.get(report));
+			} else {
+				try (Reader in = new BufferedReader(new FileReader(positional.get(0)));
+					Writer out = new BufferedWriter(new FileWriter(positional.get(1)))) {
+					log("chequeando documento");
+					sp.checkDocument(in, System.in, out);
+				}
+			}
 			log("finalizado");
+			if (corrector instanceof CachingCorrector) {
+				log(corrector);
+			}
+			if (Metrics.isEnabled()) {
+				log("metricas:" + System.lineSeparator() + Metrics.dump());
+			}
+		} catch (IllegalArgumentException e) {
+			logErr("main: Opcion invalida: " + e.getMessage());
+			usage();
 		} catch (IOException e) {
 			logErr("main: Error procesando el documento: " + e.getMessage());
 		} catch (FileCorrector.FormatException e) {
@@ -0,0 +1,21 @@
+package edu.isistan.spellchecker;
+
+/**
+ * Que hacer, en modo automatico, con una palabra desconocida para la que el corrector no tiene sugerencias.
+ *
+ * @see SpellChecker#autoCorrect
+ */
+public enum UnknownWordPolicy {
+    /**
+     * Se deja como estaba.
+     */
+    KEEP,
+    /**
+     * Se deja marcada entre corchetes, por ejemplo {@code [xyzzy]}.
+     */
+    MARK,
+    /**
+     * Se deja como estaba y se agrega al reporte, con su numero de linea.
+     */
+    REPORT
+}
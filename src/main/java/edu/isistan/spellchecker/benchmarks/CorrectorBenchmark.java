@@ -0,0 +1,92 @@
+package edu.isistan.spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.isistan.spellchecker.corrector.dictionary.Dictionary;
+import edu.isistan.spellchecker.corrector.impl.FileCorrector;
+import edu.isistan.spellchecker.corrector.impl.Levenshtein;
+import edu.isistan.spellchecker.corrector.impl.NGramCorrector;
+import edu.isistan.spellchecker.corrector.impl.SwapCorrector;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+
+/**
+ * Latencia de {@code getCorrections} de cada corrector, para distintos tamanios de diccionario
+ * y proporciones de palabras mal escritas entre las consultas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorrectorBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int words;
+
+    @Param({"0.1", "0.5", "1.0"})
+    public double misspellingRate;
+
+    private SwapCorrector swap;
+    private Levenshtein levenshtein;
+    private NGramCorrector ngram;
+    private FileCorrector file;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, FileCorrector.FormatException {
+        List<String> dict = SyntheticCorpus.words(words, 42);
+        Dictionary dictionary = new Dictionary(new TokenScanner(new StringReader(SyntheticCorpus.lines(dict))));
+        swap = new SwapCorrector(dictionary);
+        levenshtein = new Levenshtein(dictionary);
+        ngram = new NGramCorrector(dictionary);
+        //los errores del FileCorrector salen de la misma semilla que las consultas, asi una parte se encuentra
+        file = new FileCorrector(new StringReader(SyntheticCorpus.lines(SyntheticCorpus.misspellings(dict, words / 10, 7))));
+        queries = SyntheticCorpus.queries(dict, 1024, misspellingRate, 7).toArray(new String[0]);
+    }
+
+    private String nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    public int swapCorrector() {
+        return swap.getCorrections(nextQuery()).size();
+    }
+
+    @Benchmark
+    public int levenshtein() {
+        return levenshtein.getCorrections(nextQuery()).size();
+    }
+
+    /**
+     * A distancia {@link NGramCorrector#DEFAULT_MAX_DISTANCE}: el Dictionary solo indexa distancia uno.
+     */
+    @Benchmark
+    public int ngram() {
+        return ngram.getCorrections(nextQuery()).size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int fileCorrector() {
+        return file.getCorrections(nextQuery()).size();
+    }
+}
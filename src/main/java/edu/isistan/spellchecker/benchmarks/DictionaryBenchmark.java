@@ -0,0 +1,116 @@
+package edu.isistan.spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.isistan.spellchecker.corrector.dictionary.CompactTrieDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.Dictionary;
+import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.TrieDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.index.LengthIndex;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+
+/**
+ * Compara las implementaciones de {@link IDictionary}: tiempo de carga, {@code isWord} y {@code filterBy}.
+ * <p>
+ * La mitad de las consultas son palabras del diccionario y la otra mitad tienen un error.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictionaryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int words;
+
+    @Param({"Dictionary", "TrieDictionary", "CompactTrieDictionary"})
+    public String implementation;
+
+    private String source;
+    private IDictionary dictionary;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> dict = SyntheticCorpus.words(words, 42);
+        source = SyntheticCorpus.lines(dict);
+        dictionary = load(implementation, source);
+        queries = SyntheticCorpus.queries(dict, 1024, 0.5, 7).toArray(new String[0]);
+    }
+
+    static IDictionary load(String implementation, String source) throws IOException {
+        TokenScanner ts = new TokenScanner(new StringReader(source));
+        switch (implementation) {
+            case "Dictionary":
+                return new Dictionary(ts);
+            case "TrieDictionary":
+                return new TrieDictionary(ts);
+            case "CompactTrieDictionary":
+                return new CompactTrieDictionary(ts);
+            default:
+                throw new IllegalArgumentException("Unknown dictionary: " + implementation);
+        }
+    }
+
+    private String nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public IDictionary load() throws IOException {
+        return load(implementation, source);
+    }
+
+    @Benchmark
+    public boolean isWord() {
+        return dictionary.isWord(nextQuery());
+    }
+
+    /**
+     * Recorrido completo del diccionario, como lo usan los correctores basados en filterBy.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int filterBy() {
+        int length = nextQuery().length();
+        return dictionary.filterBy(w -> w.length() == length ? 1 : 0).size();
+    }
+
+    /**
+     * El mismo filtro con el filterBy acotado por largo: solo se recorren las palabras de ese largo.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int filterByLength() {
+        int length = nextQuery().length();
+        return dictionary.filterBy(length, length, 0, LengthIndex.ANY_SIGNATURE, w -> 1).size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int wordsWithinDistance() {
+        return dictionary.getWordsWithinDistance(nextQuery(), 1).size();
+    }
+}
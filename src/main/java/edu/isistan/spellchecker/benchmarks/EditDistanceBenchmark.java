@@ -0,0 +1,72 @@
+package edu.isistan.spellchecker.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.isistan.spellchecker.corrector.impl.EditDistance;
+import edu.isistan.spellchecker.corrector.impl.LevenshteinImpl;
+
+/**
+ * Compara la distancia de Levenshtein recursiva contra el motor de programacion dinamica acotado.
+ * <p>
+ * Los pares de palabras tienen el largo indicado y difieren en dos ediciones. La version recursiva
+ * crece exponencialmente, por eso no se prueba con palabras mas largas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EditDistanceBenchmark {
+
+    @Param({"4", "6", "8"})
+    public int length;
+
+    private String source;
+    private String target;
+    private EditDistance engine;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + (i * 7) % 26));
+        }
+        source = sb.toString();
+        //una sustitucion al principio y un borrado al final
+        target = 'z' + source.substring(1, length - 1);
+        engine = new EditDistance();
+    }
+
+    @Benchmark
+    public int recursive() {
+        return LevenshteinImpl.levenshteinDistanceRecursive(source, target);
+    }
+
+    @Benchmark
+    public int dynamic() {
+        return engine.distance(source, target);
+    }
+
+    @Benchmark
+    public int dynamicBounded() {
+        return engine.distance(source, target, 1);
+    }
+
+    @Benchmark
+    public int deleteDistanceOne() {
+        return LevenshteinImpl.deleteDistanceOne(source, target);
+    }
+}
@@ -0,0 +1,78 @@
+package edu.isistan.spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.isistan.spellchecker.corrector.dictionary.CompactTrieDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.Dictionary;
+import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.TrieDictionary;
+
+/**
+ * Consultas exhaustivas secuenciales contra las paralelas por shards, en diccionarios grandes.
+ * El umbral se pone en 0 o en el maximo para forzar cada modo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelScanBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int words;
+
+    @Param({"Dictionary", "TrieDictionary", "CompactTrieDictionary"})
+    public String implementation;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private IDictionary dictionary;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> dict = SyntheticCorpus.words(words, 42);
+        dictionary = DictionaryBenchmark.load(implementation, SyntheticCorpus.lines(dict));
+        int threshold = parallel ? 0 : Integer.MAX_VALUE;
+        if (dictionary instanceof Dictionary) ((Dictionary) dictionary).setParallelThreshold(threshold);
+        if (dictionary instanceof TrieDictionary) ((TrieDictionary) dictionary).setParallelThreshold(threshold);
+        if (dictionary instanceof CompactTrieDictionary) ((CompactTrieDictionary) dictionary).setParallelThreshold(threshold);
+        queries = SyntheticCorpus.queries(dict, 64, 0.5, 7).toArray(new String[0]);
+    }
+
+    private String nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    public int filterBy() {
+        int length = nextQuery().length();
+        return dictionary.filterBy(w -> w.length() == length ? 1 : 0).size();
+    }
+
+    /**
+     * A distancia 2 el Dictionary no tiene indice y recorre todo con filterBy.
+     */
+    @Benchmark
+    public int wordsWithinDistance2() {
+        return dictionary.getWordsWithinDistance(nextQuery(), 2).size();
+    }
+}
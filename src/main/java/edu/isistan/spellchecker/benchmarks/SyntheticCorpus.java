@@ -0,0 +1,174 @@
+package edu.isistan.spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Genera palabras sinteticas para que los benchmarks corran sin archivos externos.
+ * <p>
+ * Las palabras alternan consonantes y vocales, asi comparten prefijos como un diccionario real
+ * (un trie de palabras totalmente aleatorias casi no tiene prefijos comunes).
+ * <p>
+ * Tambien puede usarse desde linea de comando para generar un corpus en disco:
+ * <code>java SyntheticCorpus {@code directorio} [palabras] [caracteres] [tasa de errores]</code>
+ * genera dictionary.txt, misspellings.txt (formato del FileCorrector) y document.txt.
+ */
+public class SyntheticCorpus {
+    private static final String CONSONANTS = "bcdfghlmnprstv";
+    private static final String VOWELS = "aeiou";
+    private static final String PUNCTUATION = ".,;!?";
+
+    /**
+     * @param n cantidad de palabras distintas
+     * @param seed semilla, para que dos corridas usen las mismas palabras
+     * @return n palabras distintas en lower-case de 3 a 12 letras
+     */
+    public static List<String> words(int n, long seed) {
+        Random random = new Random(seed);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < n) {
+            words.add(word(random, 3 + random.nextInt(10)));
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Aplica un error tipico a la palabra: swap de letras contiguas, borrado, insercion o sustitucion.
+     *
+     * @param word palabra de al menos 2 letras
+     * @return la palabra con un error (puede coincidir con otra palabra del diccionario)
+     */
+    public static String misspell(String word, Random random) {
+        char[] chars = word.toCharArray();
+        int i = random.nextInt(chars.length - 1);
+        switch (random.nextInt(4)) {
+            case 0:
+                char c = chars[i];
+                chars[i] = chars[i + 1];
+                chars[i + 1] = c;
+                return new String(chars);
+            case 1:
+                return word.substring(0, i) + word.substring(i + 1);
+            case 2:
+                return word.substring(0, i) + (char) ('a' + random.nextInt(26)) + word.substring(i);
+            default:
+                chars[i] = chars[i] == 'z' ? 'a' : (char) (chars[i] + 1);
+                return new String(chars);
+        }
+    }
+
+    /**
+     * @param dictionary palabras correctas
+     * @param n cantidad de consultas
+     * @param misspellingRate proporcion (entre 0 y 1) de consultas con un error
+     * @return palabras a consultar: del diccionario o con un error
+     */
+    public static List<String> queries(List<String> dictionary, int n, double misspellingRate, long seed) {
+        Random random = new Random(seed);
+        List<String> queries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String word = dictionary.get(random.nextInt(dictionary.size()));
+            queries.add(random.nextDouble() < misspellingRate ? misspell(word, random) : word);
+        }
+        return queries;
+    }
+
+    /**
+     * @param dictionary palabras correctas
+     * @param n cantidad de errores distintos
+     * @return lineas "error,correccion" con el formato del FileCorrector
+     */
+    public static List<String> misspellings(List<String> dictionary, int n, long seed) {
+        Random random = new Random(seed);
+        Set<String> wrong = new LinkedHashSet<>();
+        List<String> lines = new ArrayList<>(n);
+        for (int tries = 0; lines.size() < n && tries < n * 10; tries++) {
+            String word = dictionary.get(random.nextInt(dictionary.size()));
+            String misspelled = misspell(word, random);
+            if (!misspelled.equals(word) && wrong.add(misspelled)) {
+                lines.add(misspelled + "," + word);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Genera un texto con palabras, espacios, saltos de linea y signos de puntuacion.
+     *
+     * @param dictionary palabras correctas
+     * @param chars largo aproximado (en caracteres) del texto
+     * @param misspellingRate proporcion de palabras con un error
+     */
+    public static String document(List<String> dictionary, int chars, double misspellingRate, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(chars + 32);
+        int wordsInLine = 0;
+        while (sb.length() < chars) {
+            String word = dictionary.get(random.nextInt(dictionary.size()));
+            if (random.nextDouble() < misspellingRate) word = misspell(word, random);
+            if (random.nextInt(10) == 0) word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            sb.append(word);
+            if (random.nextInt(8) == 0) sb.append(PUNCTUATION.charAt(random.nextInt(PUNCTUATION.length())));
+            if (++wordsInLine == 12) {
+                sb.append('\n');
+                wordsInLine = 0;
+            } else {
+                sb.append(' ');
+            }
+        }
+        sb.setLength(chars);
+        return sb.toString();
+    }
+
+    /**
+     * @param words palabras
+     * @return las palabras, una por linea, como un archivo de diccionario
+     */
+    public static String lines(List<String> words) {
+        StringBuilder sb = new StringBuilder();
+        for (String w: words) sb.append(w).append('\n');
+        return sb.toString();
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            String letters = i % 2 == 0 ? CONSONANTS : VOWELS;
+            sb.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("uso: java SyntheticCorpus <directorio> [palabras] [caracteres] [tasa de errores]");
+            return;
+        }
+        Path dir = Paths.get(args[0]);
+        int numWords = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int numChars = args.length > 2 ? Integer.parseInt(args[2]) : 8 << 20;
+        double rate = args.length > 3 ? Double.parseDouble(args[3]) : 0.05;
+
+        Files.createDirectories(dir);
+        List<String> dictionary = words(numWords, 42);
+        write(dir.resolve("dictionary.txt"), lines(dictionary));
+        write(dir.resolve("misspellings.txt"), lines(misspellings(dictionary, numWords / 10, 43)));
+        write(dir.resolve("document.txt"), document(dictionary, numChars, rate, 44));
+        System.out.println("SyntheticCorpus: corpus generado en " + dir);
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(content);
+        }
+    }
+}
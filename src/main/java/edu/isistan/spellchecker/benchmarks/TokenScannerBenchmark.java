@@ -0,0 +1,64 @@
+package edu.isistan.spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+
+/**
+ * Throughput del {@link TokenScanner}. Cada operacion tokeniza un documento de 1 MiB de caracteres,
+ * asi que el resultado en ops/s es directamente MiB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenScannerBenchmark {
+    private static final int DOCUMENT_CHARS = 1 << 20;
+
+    private String document;
+
+    @Setup
+    public void setUp() {
+        List<String> dict = SyntheticCorpus.words(10000, 42);
+        document = SyntheticCorpus.document(dict, DOCUMENT_CHARS, 0.05, 44);
+    }
+
+    @Benchmark
+    public int next() throws IOException {
+        TokenScanner ts = new TokenScanner(new StringReader(document));
+        int words = 0;
+        while (ts.hasNext()) {
+            if (TokenScanner.isWord(ts.next())) words++;
+        }
+        return words;
+    }
+
+    /**
+     * Modo sin copia: no crea un String por token.
+     */
+    @Benchmark
+    public int advance() throws IOException {
+        TokenScanner ts = new TokenScanner(new StringReader(document));
+        int words = 0;
+        while (ts.advance()) {
+            if (TokenScanner.isWord(ts.getBuffer(), ts.getTokenStart(), ts.getTokenLength())) words++;
+        }
+        return words;
+    }
+}
@@ -0,0 +1,132 @@
+package edu.isistan.spellchecker.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.isistan.spellchecker.corrector.dictionary.trie.CompactTrie;
+import edu.isistan.spellchecker.corrector.dictionary.trie.Trie;
+
+/**
+ * Compara el Trie (HashMap por nodo) contra el CompactTrie (arreglos planos) en busquedas exactas
+ * y aproximadas. Para el consumo de memoria ver {@link #main}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrieBenchmark {
+
+    @Param({"10000", "100000"})
+    public int words;
+
+    private Trie trie;
+    private CompactTrie compactTrie;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> dict = SyntheticCorpus.words(words, 42);
+        trie = new Trie();
+        compactTrie = new CompactTrie();
+        for (String w: dict) {
+            trie.insert(w);
+            compactTrie.insert(w);
+        }
+        compactTrie.trimToSize();
+        //mitad palabras del diccionario, mitad palabras nuevas
+        List<String> others = SyntheticCorpus.words(1024, 7);
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = i % 2 == 0 ? dict.get(i * 31 % dict.size()) : others.get(i);
+        }
+    }
+
+    private String nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    public boolean trieSearch() {
+        return trie.search(nextQuery());
+    }
+
+    @Benchmark
+    public boolean compactTrieSearch() {
+        return compactTrie.search(nextQuery());
+    }
+
+    @Benchmark
+    public int trieFuzzySearch() {
+        return trie.fuzzySearch(nextQuery(), 1).size();
+    }
+
+    @Benchmark
+    public int compactTrieFuzzySearch() {
+        return compactTrie.fuzzySearch(nextQuery(), 1).size();
+    }
+
+    /**
+     * Reporta bytes por palabra de cada representacion (aproximado, por diferencia de heap usado).
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        List<String> dict = SyntheticCorpus.words(n, 42);
+
+        long before = usedHeap();
+        Trie trie = new Trie();
+        for (String w: dict) trie.insert(w);
+        long trieBytes = usedHeap() - before;
+
+        before = usedHeap();
+        CompactTrie compactTrie = new CompactTrie();
+        for (String w: dict) compactTrie.insert(w);
+        compactTrie.trimToSize();
+        long compactBytes = usedHeap() - before;
+
+        //los tries se usan despues de medir los dos, asi ninguno se recolecta antes
+        System.out.println(n + " words, " + compactTrie.getNumNodes() + " nodes");
+        System.out.println("Trie:        " + trieBytes / n + " bytes/word, " + trie.getNumWords() + " distinct words");
+        System.out.println("CompactTrie: " + compactBytes / n + " bytes/word, " + compactTrie.getNumWords() + " distinct words");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Recorrido completo sin crear un String por palabra.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int trieForEachWord() {
+        int[] chars = new int[1];
+        trie.forEachWord(word -> chars[0] += word.length());
+        return chars[0];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int compactTrieForEachWord() {
+        int[] chars = new int[1];
+        compactTrie.forEachWord(word -> chars[0] += word.length());
+        return chars[0];
+    }
+}
@@ -1,5 +0,0 @@
-package edu.isistan.spellchecker.benchmarks;
-
-public class benchmarkTests {
-
-}
@@ -1,4 +1,6 @@
 package edu.isistan.spellchecker.corrector;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeSet;
 import java.util.Set;
 
@@ -9,6 +11,9 @@ import java.util.Set;
  * <p>
  * Implementaciones concretas deben implementar el metodo getCorrections
  * que en general invocara al metodo matchCase.
+ * <p>
+ * getTopCorrections retorna las mejores correcciones ordenadas (ver {@link TopCorrections}). Los correctores
+ * con diccionario deberian sobreescribirlo para ordenar tambien por frecuencia.
  */
 public abstract class Corrector {
 	
@@ -39,6 +44,25 @@ public abstract class Corrector {
 		return revisedSet;
 	}
 
+	/**
+	 * Igual que {@link #matchCase(String, Set)}, pero mantiene el orden de las correcciones.
+	 *
+	 * @param incorrectWord palabra a corregir
+	 * @param corrections correciones sugeridas, ordenadas
+	 * @return correcciones sugeridas con la correcta capitalizacion, en el mismo orden
+	 */
+	public List<String> matchCase(String incorrectWord, List<String> corrections) {
+		if (incorrectWord == null || corrections == null) {
+			throw new IllegalArgumentException("null input given");
+		}
+		List<String> revised = new ArrayList<>(corrections.size());
+		boolean capitalizeFirst = !incorrectWord.isEmpty() && Character.isUpperCase(incorrectWord.charAt(0));
+		for (String s : corrections) {
+			revised.add(capitalizeFirst ? s.substring(0, 1).toUpperCase() + s.substring(1).toLowerCase() : s.toLowerCase());
+		}
+		return revised;
+	}
+
 	/**
 	 * Retoran una lista de sugerencias para una palabra mal escrita.
 	 * <p>
@@ -50,4 +74,23 @@ public abstract class Corrector {
 	 * @throws IllegalArgumentException si la entrada no es una palabra valida 
 	 */
 	public abstract Set<String> getCorrections(String wrong);
+
+	/**
+	 * Retorna las k mejores sugerencias para una palabra mal escrita, la mejor primero.
+	 * <p>
+	 * Por defecto ordena el resultado de getCorrections por distancia de edicion y despues alfabeticamente.
+	 *
+	 * @param wrong palabra mal escrita
+	 * @param k cantidad maxima de sugerencias
+	 * @return lista (potencialmente vacia) de a lo sumo k sugerencias
+	 * @throws IllegalArgumentException si la entrada no es una palabra valida o k es menor a 1
+	 */
+	public List<String> getTopCorrections(String wrong, int k) {
+		if (wrong == null) throw new IllegalArgumentException("Wrong word is null");
+		TopCorrections top = new TopCorrections(wrong.toLowerCase(), k, null);
+		for (String correction : getCorrections(wrong)) {
+			top.offer(correction.toLowerCase());
+		}
+		return matchCase(wrong, top.toList());
+	}
 }
@@ -0,0 +1,73 @@
+package edu.isistan.spellchecker.corrector;
+
+import java.util.List;
+import java.util.Set;
+
+import edu.isistan.spellchecker.metrics.Counter;
+import edu.isistan.spellchecker.metrics.Histogram;
+import edu.isistan.spellchecker.metrics.Metrics;
+
+/**
+ * Decorador que mide un corrector: consultas, latencia (ns) y cantidad de correcciones por consulta.
+ * Las metricas se llaman {@code corrector.<Clase>.queries}, {@code .latency} y {@code .candidates};
+ * todos los correctores de la misma clase comparten las suyas.
+ * <p>
+ * Si las metricas se deshabilitan despues de crearlo, solo delega.
+ */
+public class MeteredCorrector extends Corrector {
+    private final Corrector corrector;
+    private final Counter queries;
+    private final Histogram latency;
+    private final Histogram candidates;
+
+    public MeteredCorrector(Corrector corrector) {
+        if (corrector == null) throw new IllegalArgumentException("Corrector cannot be null");
+        this.corrector = corrector;
+        String prefix = "corrector." + corrector.getClass().getSimpleName();
+        this.queries = Metrics.counter(prefix + ".queries");
+        this.latency = Metrics.latency(prefix + ".latency");
+        this.candidates = Metrics.histogram(prefix + ".candidates");
+    }
+
+    /**
+     * @return el corrector envuelto en un MeteredCorrector, o el mismo si las metricas estan
+     * deshabilitadas o ya estaba envuelto
+     */
+    public static Corrector wrap(Corrector corrector) {
+        if (!Metrics.isEnabled() || corrector instanceof MeteredCorrector) return corrector;
+        return new MeteredCorrector(corrector);
+    }
+
+    public Corrector getDelegate() {
+        return corrector;
+    }
+
+    @Override
+    public Set<String> getCorrections(String wrong) {
+        if (!Metrics.isEnabled()) return corrector.getCorrections(wrong);
+        long start = System.nanoTime();
+        Set<String> corrections = corrector.getCorrections(wrong);
+        record(start, corrections.size());
+        return corrections;
+    }
+
+    @Override
+    public List<String> getTopCorrections(String wrong, int k) {
+        if (!Metrics.isEnabled()) return corrector.getTopCorrections(wrong, k);
+        long start = System.nanoTime();
+        List<String> corrections = corrector.getTopCorrections(wrong, k);
+        record(start, corrections.size());
+        return corrections;
+    }
+
+    private void record(long start, int size) {
+        latency.record(System.nanoTime() - start);
+        queries.increment();
+        candidates.record(size);
+    }
+
+    @Override
+    public String toString() {
+        return corrector.toString();
+    }
+}
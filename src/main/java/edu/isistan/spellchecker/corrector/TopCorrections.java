@@ -0,0 +1,90 @@
+package edu.isistan.spellchecker.corrector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.corrector.impl.EditDistance;
+
+/**
+ * Se queda con las k mejores correcciones de una palabra a medida que se le ofrecen candidatos.
+ * <p>
+ * Orden: menor distancia de edicion (Damerau, un swap cuenta como una edicion), despues mayor frecuencia
+ * en el diccionario y por ultimo orden alfabetico, para que el resultado sea determinista.
+ * <p>
+ * Los candidatos se guardan en un heap de tamanio k con el peor arriba: un candidato que no mejora
+ * al peor se descarta sin guardarlo, asi nunca se ordena el conjunto completo de candidatos.
+ */
+public class TopCorrections {
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingInt((Candidate c) -> c.distance)
+            .thenComparing(Comparator.comparingInt((Candidate c) -> c.frequency).reversed())
+            .thenComparing(c -> c.word);
+
+    private final String word;
+    private final int k;
+    private final IDictionary dictionary;
+    private final PriorityQueue<Candidate> heap;
+
+    /**
+     * @param word palabra a corregir, en lower-case
+     * @param k cantidad de correcciones a conservar
+     * @param dictionary diccionario de donde sacar las frecuencias, o null si no hay
+     * @throws IllegalArgumentException si k es menor a 1
+     */
+    public TopCorrections(String word, int k, IDictionary dictionary) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        this.word = word;
+        this.k = k;
+        this.dictionary = dictionary;
+        this.heap = new PriorityQueue<>(Math.min(k, 64) + 1, BEST_FIRST.reversed());
+    }
+
+    /**
+     * @param candidate correccion candidata, en lower-case. La palabra misma se ignora.
+     */
+    public void offer(String candidate) {
+        if (candidate.equals(word)) return;
+        int distance = EditDistance.get().damerauDistance(word, candidate);
+        int frequency = dictionary == null ? 0 : dictionary.getFrequency(candidate);
+        Candidate c = new Candidate(candidate, distance, frequency);
+        if (heap.size() == k) {
+            if (BEST_FIRST.compare(c, heap.peek()) >= 0) return;
+            heap.poll();
+        }
+        heap.add(c);
+    }
+
+    /**
+     * @param candidates correcciones candidatas, en lower-case
+     */
+    public void offerAll(Iterable<String> candidates) {
+        for (String candidate: candidates) offer(candidate);
+    }
+
+    /**
+     * @return las correcciones conservadas, la mejor primero
+     */
+    public List<String> toList() {
+        List<String> words = new ArrayList<>(heap.size());
+        PriorityQueue<Candidate> copy = new PriorityQueue<>(heap);
+        while (!copy.isEmpty()) words.add(copy.poll().word);
+        Collections.reverse(words);
+        return words;
+    }
+
+    private static final class Candidate {
+        private final String word;
+        private final int distance;
+        private final int frequency;
+
+        Candidate(String word, int distance, int frequency) {
+            this.word = word;
+            this.distance = distance;
+            this.frequency = frequency;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package edu.isistan.spellchecker.corrector.dictionary;
+
+import edu.isistan.spellchecker.corrector.dictionary.trie.CompactTrie;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Igual que el TrieDictionary, pero sobre un {@link CompactTrie}: los nodos viven en arreglos planos
+ * en lugar de un TrieNode con un HashMap por caracter.
+ */
+public class CompactTrieDictionary implements IDictionary {
+    private static final Log LOG = Log.getLog(CompactTrieDictionary.class);
+
+    private final CompactTrie dic;
+    private final WordNormalizer normalizer;
+    private final WordFrequencies frequencies;
+    private volatile int parallelThreshold = Dictionary.DEFAULT_PARALLEL_THRESHOLD;
+
+    public CompactTrieDictionary(TokenScanner ts) {
+        this(ts, WordNormalizer.getDefault());
+    }
+
+    /**
+     * @param ts
+     * @param normalizer normalizacion de las palabras (por ejemplo sin acentos)
+     */
+    public CompactTrieDictionary(TokenScanner ts, WordNormalizer normalizer) {
+        if (ts == null || normalizer == null) throw new IllegalArgumentException();
+        ts.setName("TokenScannerCompactTrieDictionary");
+        this.dic = new CompactTrie();
+        this.normalizer = normalizer;
+        this.frequencies = new WordFrequencies();
+
+        while (ts.hasNext()) {
+            try {
+                String token = ts.next();
+                if (TokenScanner.isWord(token)) {
+                    String word = normalizer.normalize(token);
+                    dic.insert(word);
+                    frequencies.word(word);
+                } else {
+                    frequencies.other(token);
+                }
+            } catch (NoSuchElementException nse) {
+                LOG.debug("Finalizado.");
+            }
+        }
+        dic.trimToSize();
+        LOG.info(dic.getNumWords() + " words in dictionary (" + dic.getNumNodes() + " nodes)");
+    }
+
+    /**
+     * Diccionario ya construido, por ejemplo leido de un snapshot (ver {@link DictionarySnapshot}).
+     */
+    CompactTrieDictionary(CompactTrie dic, WordFrequencies frequencies, WordNormalizer normalizer) {
+        this.dic = dic;
+        this.normalizer = normalizer;
+        this.frequencies = frequencies;
+    }
+
+    CompactTrie trie() {
+        return dic;
+    }
+
+    WordFrequencies frequencies() {
+        return frequencies;
+    }
+
+    @Override
+    public int getNumWords() {
+        return dic.getNumWords();
+    }
+
+    @Override
+    public boolean isWord(String word) {
+        if (word == null) return false;
+        return dic.search(word, normalizer);
+    }
+
+    /**
+     * @param prefix prefijo a buscar (case insensitive)
+     * @return true si alguna palabra del diccionario empieza con prefix
+     */
+    public boolean startsWith(String prefix) {
+        if (prefix == null) return false;
+        return dic.startsWith(prefix, normalizer);
+    }
+
+    /**
+     * @param text texto sin normalizar (se normaliza caracter por caracter, ver {@link WordNormalizer#fold})
+     * @param from posicion donde empieza la palabra
+     * @return el largo de la palabra mas larga del diccionario que es prefijo de text desde from, o -1
+     */
+    public int longestPrefixLength(CharSequence text, int from) {
+        return dic.longestPrefixLength(text, from, normalizer);
+    }
+
+    @Override
+    public int getFrequency(String word) {
+        if (word == null) return 0;
+        return frequencies.get(normalizer.normalize(word));
+    }
+
+    @Override
+    public WordNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * @param words cantidad de palabras desde la cual filterBy y la busqueda aproximada recorren las ramas
+     * del trie en paralelo, 0 para siempre. En paralelo la funcion de filterBy tiene que ser thread-safe.
+     */
+    public void setParallelThreshold(int words) {
+        if (words < 0) throw new IllegalArgumentException("Threshold must not be negative");
+        this.parallelThreshold = words;
+    }
+
+    @Override
+    public Set<String> filterBy(Function<String, Integer> f) {
+        return dic.getNumWords() >= parallelThreshold ? dic.parallelFilterBy(f) : dic.filterBy(f);
+    }
+
+    /**
+     * El recorrido no baja mas alla de maxLength, y el largo minimo y la firma se chequean sobre el camino,
+     * antes de crear el String. En paralelo se usa el recorrido completo con el mismo filtro.
+     */
+    @Override
+    public Set<String> filterBy(int minLength, int maxLength, int signature, int maxSignatureDistance,
+            Function<String, Integer> f) {
+        if (dic.getNumWords() >= parallelThreshold) {
+            return IDictionary.super.filterBy(minLength, maxLength, signature, maxSignatureDistance, f);
+        }
+        return dic.filterBy(minLength, maxLength, signature, maxSignatureDistance, f);
+    }
+
+    @Override
+    public Set<String> getWordsWithinDistance(String word, int maxDistance) {
+        return dic.getNumWords() >= parallelThreshold ? dic.parallelFuzzySearch(word, maxDistance) : dic.fuzzySearch(word, maxDistance);
+    }
+
+    @Override
+    public void printAll() {
+        dic.printTrie();
+    }
+}
@@ -0,0 +1,246 @@
+package edu.isistan.spellchecker.corrector.dictionary;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import edu.isistan.spellchecker.corrector.dictionary.index.DeletionIndex;
+import edu.isistan.spellchecker.corrector.impl.LevenshteinImpl;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Diccionario thread-safe que permite agregar y sacar palabras mientras otros threads lo consultan,
+ * por ejemplo las palabras propias de cada usuario en un servidor.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Las palabras (con su frecuencia) viven en un ConcurrentHashMap: las lecturas no toman locks y las
+ * escrituras solo bloquean el bucket de la palabra, asi que nunca frenan a los lectores.
+ * <li> El indice de borrados (ver {@link DeletionIndex}) tambien es concurrente: variante -> set concurrente
+ * de palabras. Agregar o sacar una palabra actualiza el indice dentro del {@code compute} de la palabra,
+ * por lo que dos escrituras sobre la misma palabra no se mezclan.
+ * <li> Un lector que corre a la vez que una escritura puede ver la palabra antes que su indice (o al reves).
+ * Por eso los candidatos del indice se verifican contra el mapa de palabras: nunca se sugiere una palabra
+ * que ya se saco.
+ * <li> La cantidad de palabras es un contador atomico que se actualiza junto con cada alta y baja efectiva.
+ * </ul>
+ */
+public class ConcurrentDictionary implements IDictionary {
+    private static final Log LOG = Log.getLog(ConcurrentDictionary.class);
+
+    private final ConcurrentHashMap<String, Integer> words = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> deletes;
+    private final int indexDistance;
+    private final AtomicInteger count = new AtomicInteger();
+    private final WordNormalizer normalizer = WordNormalizer.getDefault();
+    private volatile int parallelThreshold = Dictionary.DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Diccionario vacio, con indice de borrados a distancia {@link Dictionary#DEFAULT_INDEX_DISTANCE}.
+     */
+    public ConcurrentDictionary() {
+        this(Dictionary.DEFAULT_INDEX_DISTANCE);
+    }
+
+    /**
+     * Diccionario vacio.
+     *
+     * @param indexDistance distancia maxima del indice de borrados. 0 no construye el indice.
+     */
+    public ConcurrentDictionary(int indexDistance) {
+        if (indexDistance < 0) throw new IllegalArgumentException("indexDistance must not be negative");
+        this.indexDistance = indexDistance;
+        this.deletes = indexDistance > 0 ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Carga las palabras (y sus frecuencias opcionales) con el mismo criterio que el {@link Dictionary}.
+     *
+     * @param ts fuente de palabras
+     * @throws IllegalArgumentException el TokenScanner es null
+     */
+    public ConcurrentDictionary(TokenScanner ts) {
+        this(Dictionary.DEFAULT_INDEX_DISTANCE);
+        if (ts == null) throw new IllegalArgumentException();
+        ts.setName("TokenScannerConcurrentDictionary");
+        WordFrequencies frequencies = new WordFrequencies();
+        while (ts.hasNext()) {
+            try {
+                String token = ts.next();
+                if (TokenScanner.isWord(token)) {
+                    String word = normalizer.normalize(token);
+                    addWord(word);
+                    frequencies.word(word);
+                } else {
+                    frequencies.other(token);
+                }
+            } catch (NoSuchElementException nse) {
+                LOG.debug("Finalizado.");
+            }
+        }
+        if (frequencies.size() > 0) {
+            for (Map.Entry<String, Integer> entry: words.entrySet()) {
+                entry.setValue(frequencies.get(entry.getKey()));
+            }
+        }
+        LOG.info(count.get() + " words in dictionary");
+    }
+
+    /**
+     * @param filename archivo de palabras
+     * @throws IOException Error leyendo el archivo
+     */
+    public static ConcurrentDictionary make(String filename) throws IOException {
+        try (Reader r = new FileReader(filename)) {
+            return new ConcurrentDictionary(new TokenScanner(r));
+        }
+    }
+
+    /**
+     * Agrega una palabra sin frecuencia.
+     *
+     * @see #addWord(String, int)
+     */
+    public boolean addWord(String word) {
+        return addWord(word, 0);
+    }
+
+    /**
+     * Agrega una palabra. Puede llamarse desde cualquier thread mientras otros consultan.
+     *
+     * @param word palabra valida (ver {@link TokenScanner#isWord(String)}), case insensitive
+     * @param frequency frecuencia de la palabra
+     * @return true si la palabra no estaba
+     * @throws IllegalArgumentException si no es una palabra valida
+     */
+    public boolean addWord(String word, int frequency) {
+        if (word == null || !TokenScanner.isWord(word)) throw new IllegalArgumentException("Not a word: " + word);
+        String lower = normalizer.normalize(word);
+        boolean[] added = new boolean[1];
+        words.compute(lower, (w, current) -> {
+            if (current != null) return current;
+            added[0] = true;
+            indexAdd(w);
+            return frequency;
+        });
+        if (added[0]) count.incrementAndGet();
+        return added[0];
+    }
+
+    /**
+     * Saca una palabra. Puede llamarse desde cualquier thread mientras otros consultan.
+     *
+     * @param word palabra, case insensitive
+     * @return true si la palabra estaba
+     */
+    public boolean removeWord(String word) {
+        if (word == null) return false;
+        boolean[] removed = new boolean[1];
+        words.computeIfPresent(normalizer.normalize(word), (w, current) -> {
+            removed[0] = true;
+            indexRemove(w);
+            return null;
+        });
+        if (removed[0]) count.decrementAndGet();
+        return removed[0];
+    }
+
+    @Override
+    public int getNumWords() {
+        return count.get();
+    }
+
+    @Override
+    public boolean isWord(String word) {
+        if (word == null) return false;
+        return words.containsKey(normalizer.normalize(word));
+    }
+
+    @Override
+    public int getFrequency(String word) {
+        if (word == null) return 0;
+        return words.getOrDefault(normalizer.normalize(word), 0);
+    }
+
+    @Override
+    public WordNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * @param words cantidad de palabras desde la cual filterBy corre en paralelo, 0 para siempre.
+     * En paralelo la funcion de filterBy tiene que ser thread-safe.
+     */
+    public void setParallelThreshold(int words) {
+        if (words < 0) throw new IllegalArgumentException("Threshold must not be negative");
+        this.parallelThreshold = words;
+    }
+
+    /**
+     * Recorre una vista de las palabras: las altas y bajas concurrentes pueden o no verse.
+     */
+    @Override
+    public Set<String> filterBy(Function<String, Integer> f) {
+        Stream<String> stream = count.get() >= parallelThreshold ? words.keySet().parallelStream() : words.keySet().stream();
+        return stream.filter(w -> f.apply(w) == 1).collect(Collectors.toSet());
+    }
+
+    /**
+     * Usa el indice de borrados si la distancia pedida esta indexada.
+     */
+    @Override
+    public Set<String> getWordsWithinDistance(String word, int maxDistance) {
+        if (deletes == null || maxDistance > indexDistance) {
+            return IDictionary.super.getWordsWithinDistance(word, maxDistance);
+        }
+        Set<String> result = new HashSet<>();
+        for (String variant: DeletionIndex.variants(word, indexDistance)) {
+            Set<String> candidates = deletes.get(variant);
+            if (candidates == null) continue;
+            for (String candidate: candidates) {
+                if (!result.contains(candidate) && words.containsKey(candidate)
+                        && LevenshteinImpl.levenshteinDistance(word, candidate, maxDistance) <= maxDistance) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void printAll() {
+        words.keySet().stream().sorted().forEach(System.out::println);
+    }
+
+    private void indexAdd(String word) {
+        if (deletes == null) return;
+        for (String variant: DeletionIndex.variants(word, indexDistance)) {
+            deletes.compute(variant, (v, set) -> {
+                if (set == null) set = ConcurrentHashMap.newKeySet();
+                set.add(word);
+                return set;
+            });
+        }
+    }
+
+    private void indexRemove(String word) {
+        if (deletes == null) return;
+        for (String variant: DeletionIndex.variants(word, indexDistance)) {
+            deletes.computeIfPresent(variant, (v, set) -> {
+                set.remove(word);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
@@ -1,29 +1,62 @@
 package edu.isistan.spellchecker.corrector.dictionary;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import edu.isistan.spellchecker.corrector.dictionary.index.DeletionIndex;
+import edu.isistan.spellchecker.corrector.dictionary.index.LengthIndex;
+import edu.isistan.spellchecker.corrector.impl.LevenshteinImpl;
+import edu.isistan.spellchecker.log.Log;
 import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
 
 /**
  * El diccionario maneja todas las palabras conocidas.
  * El diccionario es case insensitive 
+ * <p>
+ * Las palabras se normalizan al cargarlas con un {@link WordNormalizer} (por defecto solo minusculas), y
+ * las busquedas normalizan caracter por caracter sobre la palabra original, sin copiarla (ver {@link WordSet}).
  * 
  * Una palabra "valida" es una secuencia de letras (determinado por Character.isLetter) 
  * o apostrofes.
  */
 public class Dictionary implements IDictionary {
-	private final Set<String> dic;
+	private static final Log LOG = Log.getLog(Dictionary.class);
+
+	/**
+	 * Distancia maxima indexada por defecto. Los correctores sugieren palabras a distancia uno.
+	 */
+	public static final int DEFAULT_INDEX_DISTANCE = 1;
+
+	/**
+	 * Cantidad de palabras a partir de la cual filterBy (y las busquedas que no usan un indice) reparten el
+	 * diccionario entre los threads del pool de fork/join. Se configura con {@code -Dspellchecker.parallelThreshold=n};
+	 * por defecto las consultas son siempre secuenciales.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = Integer.getInteger("spellchecker.parallelThreshold", Integer.MAX_VALUE);
+
+	private final WordSet dic;
+	private final WordNormalizer normalizer;
+	private final WordFrequencies frequencies;
+	private final DeletionIndex index;
+	private final LengthIndex lengths;
+	private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
 	/**
 	 * Construye un diccionario usando un TokenScanner
 	 * <p>
 	 * Una palabra valida es una secuencia de letras (ver Character.isLetter) o apostrofes.
 	 * Toda palabra no valida se debe ignorar.
+	 * <p>
+	 * Opcionalmente cada palabra puede estar seguida de su frecuencia en la misma linea ({@code palabra<TAB>cantidad}).
 	 *
 	 * <p>
 	 * Cierra el tokenScanner que se le da cuando lo termina de usar.
@@ -33,36 +66,95 @@ public class Dictionary implements IDictionary {
 	 * @throws IllegalArgumentException el TokenScanner es null
 	 */
 	public Dictionary(TokenScanner ts) throws IOException {
-		if (ts == null) throw new IllegalArgumentException();
+		this(ts, DEFAULT_INDEX_DISTANCE);
+	}
+
+	/**
+	 * Construye un diccionario usando un TokenScanner, con un indice de borrados
+	 * hasta la distancia indicada.
+	 *
+	 * @param ts
+	 * @param indexDistance distancia maxima del indice de borrados. 0 no construye el indice.
+	 * @throws IOException Error leyendo el archivo
+	 * @throws IllegalArgumentException el TokenScanner es null
+	 */
+	public Dictionary(TokenScanner ts, int indexDistance) throws IOException {
+		this(ts, indexDistance, WordNormalizer.getDefault());
+	}
+
+	/**
+	 * Construye un diccionario usando un TokenScanner, normalizando las palabras con el normalizador dado.
+	 *
+	 * @param ts
+	 * @param indexDistance distancia maxima del indice de borrados. 0 no construye el indice.
+	 * @param normalizer normalizacion de las palabras (por ejemplo sin acentos)
+	 * @throws IOException Error leyendo el archivo
+	 * @throws IllegalArgumentException el TokenScanner o el normalizador son null
+	 */
+	public Dictionary(TokenScanner ts, int indexDistance, WordNormalizer normalizer) throws IOException {
+		if (ts == null || normalizer == null) throw new IllegalArgumentException();
 		ts.setName("TokenScannerDictionary");
-		this.dic = new HashSet<>();
+		this.dic = new WordSet(1024);
+		this.normalizer = normalizer;
+		this.frequencies = new WordFrequencies();
 
 		while (ts.hasNext()) {
 			try {
 				String token = ts.next();
 				if (TokenScanner.isWord(token)) {
-					dic.add(token.toLowerCase());
-					//dictionaryLog("Added [" + token + "]");
+					String word = normalizer.normalize(token);
+					dic.add(word);
+					frequencies.word(word);
+					//LOG.trace("Added [" + token + "]");
 				}
 				else {
-					//dictionaryLog("Not a word: [" + token + "]");
+					frequencies.other(token);
+					//LOG.trace("Not a word: [" + token + "]");
 				}
 			} catch (NoSuchElementException nse) {
-				dictionaryLog("Finalizado.");
+				LOG.debug("Finalizado.");
 			}
 		}
-		dictionaryLog(dic.size() + " words in dictionary");
+		LOG.info(dic.size() + " words in dictionary, " + frequencies.size() + " with frequency");
+		this.index = indexDistance > 0 ? DeletionIndex.build(dic, indexDistance) : null;
+		this.lengths = LengthIndex.build(dic);
 	}
 
 	/**
-	 * Construye un diccionario usando un archivo.
+	 * Diccionario con las palabras ya cargadas, por ejemplo por el {@link DictionaryLoader}.
 	 *
+	 * @param words palabras ya normalizadas; el diccionario se queda con el set
+	 * @param frequencies frecuencias de las palabras
+	 * @param indexDistance distancia maxima del indice de borrados. 0 no construye el indice.
+	 * @param normalizer normalizador con el que se normalizaron las palabras
+	 */
+	Dictionary(WordSet words, WordFrequencies frequencies, int indexDistance, WordNormalizer normalizer) {
+		this.dic = words;
+		this.normalizer = normalizer;
+		this.frequencies = frequencies;
+		LOG.info(dic.size() + " words in dictionary, " + frequencies.size() + " with frequency");
+		this.index = indexDistance > 0 ? DeletionIndex.build(dic, indexDistance) : null;
+		this.lengths = LengthIndex.build(dic);
+	}
+
+	/**
+	 * Construye un diccionario usando un archivo, en la codificacion por defecto.
+	 * Con mas de un procesador y un archivo de al menos {@link DictionaryLoader#MIN_CHUNK_BYTES}, el archivo se
+	 * lee en paralelo (ver {@link DictionaryLoader}); si no, con un TokenScanner, que en un solo procesador
+	 * es mas rapido.
 	 *
 	 * @param filename 
 	 * @throws FileNotFoundException si el archivo no existe
 	 * @throws IOException Error leyendo el archivo
 	 */
 	public static Dictionary make(String filename) throws IOException {
+		if (Runtime.getRuntime().availableProcessors() > 1 && new File(filename).length() >= DictionaryLoader.MIN_CHUNK_BYTES) {
+			try {
+				return DictionaryLoader.loadDictionary(Paths.get(filename), Charset.defaultCharset(), DEFAULT_INDEX_DISTANCE);
+			} catch (NoSuchFileException e) {
+				throw new FileNotFoundException(filename);
+			}
+		}
 		Reader r = new FileReader(filename);
 		Dictionary d = new Dictionary(new TokenScanner(r));
 		r.close();
@@ -96,25 +188,70 @@ public class Dictionary implements IDictionary {
 	@Override
 	public boolean isWord(String word) {
 		if (word == null) return false;
-		return dic.contains(word.toLowerCase());
+		return dic.contains(word, normalizer);
+	}
+
+	@Override
+	public int getFrequency(String word) {
+		if (word == null) return 0;
+		return frequencies.get(normalizer.normalize(word));
+	}
+
+	@Override
+	public WordNormalizer getNormalizer() {
+		return normalizer;
 	}
 
-	private void dictionaryLog(Object text) {
-		System.out.println("Dictionary: " + text);
+	/**
+	 * @param words cantidad de palabras desde la cual filterBy corre en paralelo, 0 para siempre.
+	 * En paralelo la funcion de filterBy se llama desde varios threads, asi que tiene que ser thread-safe.
+	 */
+	public void setParallelThreshold(int words) {
+		if (words < 0) throw new IllegalArgumentException("Threshold must not be negative");
+		this.parallelThreshold = words;
 	}
 
 	/**
 	 * Retorna las palabras del diccionario que cumplen con la condicion de que la funcion {@code f} pasada como parametro devuelve 1 cuando se le aplica cualquiera de las palabras retornadas por filterBy.
 	 * @param f la funcion a aplicarle la palabra del diccionario, que si devuelve 1, sera retornada en el set.
+	 * <p>
+	 * Con mas de {@link #setParallelThreshold} palabras, el spliterator del WordSet reparte los slots por rangos
+	 * entre los threads y cada uno junta su propio set, que se unen al final.
 	 * @return un set de palabras del diccionario que cumplen con la condicion.
 	 */
 	@Override
 	public Set<String> filterBy(Function<String, Integer> f) {
 		Set<String> wordsThatMatchF = new HashSet<>();
-		wordsThatMatchF = this.dic.stream().filter(t -> f.apply(t) == 1).collect(Collectors.toSet());
+		Stream<String> words = dic.size() >= parallelThreshold ? dic.parallelStream() : dic.stream();
+		wordsThatMatchF = words.filter(t -> f.apply(t) == 1).collect(Collectors.toSet());
 		return wordsThatMatchF;
 	}
 
+	/**
+	 * Solo recorre las palabras del {@link LengthIndex} con largo en el rango, y aplica f a las que pasan el
+	 * filtro de firma. Si el rango tiene mas de {@link #setParallelThreshold} palabras, se reparte entre los threads.
+	 */
+	@Override
+	public Set<String> filterBy(int minLength, int maxLength, int signature, int maxSignatureDistance,
+			Function<String, Integer> f) {
+		boolean parallel = lengths.count(minLength, maxLength) >= parallelThreshold;
+		return lengths.stream(minLength, maxLength, signature, maxSignatureDistance, parallel)
+				.filter(t -> f.apply(t) == 1).collect(Collectors.toSet());
+	}
+
+	/**
+	 * Usa el indice de borrados si la distancia pedida esta indexada, y verifica solo los candidatos.
+	 */
+	@Override
+	public Set<String> getWordsWithinDistance(String word, int maxDistance) {
+		if (index == null || maxDistance > index.getMaxDistance()) {
+			return IDictionary.super.getWordsWithinDistance(word, maxDistance);
+		}
+		Set<String> candidates = index.candidates(word);
+		candidates.removeIf(c -> LevenshteinImpl.levenshteinDistance(word, c, maxDistance) > maxDistance);
+		return candidates;
+	}
+
 	@Override
 	public void printAll() {
 		this.dic.stream().sorted().forEach(System.out::println);
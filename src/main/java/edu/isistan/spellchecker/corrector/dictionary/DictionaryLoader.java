@@ -0,0 +1,228 @@
+package edu.isistan.spellchecker.corrector.dictionary;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import edu.isistan.spellchecker.corrector.dictionary.trie.Trie;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Carga un archivo de palabras en paralelo.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> El archivo se mapea a memoria y se corta en partes de al menos {@link #MIN_CHUNK_BYTES}, siempre
+ * justo despues de un salto de linea. Un salto de linea siempre termina un token y la frecuencia tiene
+ * que estar en la misma linea que su palabra, asi que cada parte se tokeniza igual que si se leyera el
+ * archivo entero con un solo TokenScanner.
+ * <li> Cada parte se decodifica y se tokeniza en un thread del pool de fork/join, y junta sus palabras
+ * distintas y sus frecuencias. Lo caro de cargar es hashear cada palabra leida, y eso queda repartido;
+ * en los archivos con frecuencias, donde las palabras se repiten mucho, lo que se junta al final es poco.
+ * <li> Para el {@link Dictionary} las palabras distintas de cada parte se juntan en su {@link WordSet}. Para el
+ * {@link TrieDictionary} cada thread arma un trie con las palabras de algunas iniciales y los tries se
+ * juntan: como no comparten iniciales, juntarlos es un put por rama de la raiz ({@link Trie#merge}).
+ * <li> Solo se corta el archivo si en la codificacion el salto de linea es el byte {@code '\n'} (UTF-8,
+ * ISO-8859-*, ASCII...). Con otras (UTF-16) se lee como una sola parte.
+ * </ul>
+ */
+public final class DictionaryLoader {
+    private static final Log LOG = Log.getLog(DictionaryLoader.class);
+
+    /**
+     * Tamanio minimo de cada parte: con partes mas chicas no se gana nada repartiendo.
+     */
+    public static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    private static final int SCAN_BYTES = 4096;
+
+    /**
+     * Palabras y frecuencias de una parte del archivo.
+     */
+    static final class Chunk {
+        final Set<String> words = new HashSet<>();
+        final WordFrequencies frequencies = new WordFrequencies();
+    }
+
+    private DictionaryLoader() {
+    }
+
+    /**
+     * Igual que {@code new Dictionary(new TokenScanner(reader), indexDistance)}, pero leyendo el archivo en paralelo.
+     *
+     * @param file archivo de palabras
+     * @param charset codificacion del archivo
+     * @param indexDistance distancia maxima del indice de borrados. 0 no construye el indice.
+     * @throws IOException error leyendo el archivo
+     */
+    public static Dictionary loadDictionary(Path file, Charset charset, int indexDistance) throws IOException {
+        return loadDictionary(file, charset, indexDistance, WordNormalizer.getDefault());
+    }
+
+    /**
+     * Igual que {@code new Dictionary(new TokenScanner(reader), indexDistance, normalizer)}, pero leyendo el
+     * archivo en paralelo.
+     *
+     * @param normalizer normalizacion de las palabras
+     */
+    public static Dictionary loadDictionary(Path file, Charset charset, int indexDistance, WordNormalizer normalizer) throws IOException {
+        long start = System.nanoTime();
+        List<Chunk> chunks = tokenize(file, charset, ForkJoinPool.getCommonPoolParallelism(), normalizer);
+        WordSet words = new WordSet(chunks.stream().mapToInt(chunk -> chunk.words.size()).max().orElse(0));
+        for (Chunk chunk: chunks) words.addAll(chunk.words);
+        if (LOG.isDebugEnabled()) LOG.debug(file + " leido en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return new Dictionary(words, frequencies(chunks), indexDistance, normalizer);
+    }
+
+    /**
+     * Igual que {@code new TrieDictionary(new TokenScanner(reader))}, pero leyendo el archivo en paralelo.
+     *
+     * @param file archivo de palabras
+     * @param charset codificacion del archivo
+     * @throws IOException error leyendo el archivo
+     */
+    public static TrieDictionary loadTrieDictionary(Path file, Charset charset) throws IOException {
+        return loadTrieDictionary(file, charset, WordNormalizer.getDefault());
+    }
+
+    /**
+     * Igual que {@code new TrieDictionary(new TokenScanner(reader), normalizer)}, pero leyendo el archivo en paralelo.
+     *
+     * @param normalizer normalizacion de las palabras
+     */
+    public static TrieDictionary loadTrieDictionary(Path file, Charset charset, WordNormalizer normalizer) throws IOException {
+        long start = System.nanoTime();
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        List<Chunk> chunks = tokenize(file, charset, parallelism, normalizer);
+        //cada shard arma el trie de las iniciales que le tocan, asi los tries no comparten ramas de la raiz
+        int shards = Math.max(1, parallelism);
+        List<Trie> tries = IntStream.range(0, shards).parallel().mapToObj(shard -> {
+            Trie trie = new Trie();
+            for (Chunk chunk: chunks) {
+                for (String word: chunk.words) {
+                    if (word.charAt(0) % shards == shard) trie.insert(word);
+                }
+            }
+            return trie;
+        }).collect(Collectors.toList());
+        Trie trie = tries.get(0);
+        for (int i = 1; i < tries.size(); i++) trie.merge(tries.get(i));
+        if (LOG.isDebugEnabled()) LOG.debug(file + " leido en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return new TrieDictionary(trie, frequencies(chunks), normalizer);
+    }
+
+    /**
+     * Tokeniza el archivo en partes, en paralelo.
+     *
+     * @param parallelism threads disponibles; el archivo se corta en hasta 4 partes por thread
+     * @param normalizer normalizacion de las palabras
+     * @return las palabras distintas (normalizadas) y las frecuencias de cada parte, en el orden del archivo
+     */
+    static List<Chunk> tokenize(Path file, Charset charset, int parallelism, WordNormalizer normalizer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel, charset, parallelism);
+            LOG.debug(file + ": " + (bounds.length - 1) + " partes");
+            return IntStream.range(0, bounds.length - 1).parallel().mapToObj(i -> {
+                try {
+                    return tokenize(channel, bounds[i], bounds[i + 1], charset, normalizer, new Chunk());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return los limites de las partes: la parte i va de bounds[i] a bounds[i + 1]
+     */
+    private static long[] split(FileChannel channel, Charset charset, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunks = splittable(charset) ? Math.min(size / MIN_CHUNK_BYTES, Math.max(1, parallelism) * 4L) : 1;
+        if (chunks <= 1) return new long[] {0, size};
+
+        long[] bounds = new long[(int) chunks + 1];
+        int n = 1;
+        for (int i = 1; i < chunks; i++) {
+            long bound = nextLine(channel, i * (size / chunks), size);
+            //una linea mas larga que una parte puede dejar dos cortes en el mismo lugar
+            if (bound > bounds[n - 1] && bound < size) bounds[n++] = bound;
+        }
+        bounds[n++] = size;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    /**
+     * @return la posicion siguiente al primer '\n' desde from, o size si no hay
+     */
+    private static long nextLine(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * En UTF-16 el byte 0x0A puede ser parte de cualquier caracter y el salto de linea ocupa dos bytes.
+     */
+    private static boolean splittable(Charset charset) {
+        return Arrays.equals("\n".getBytes(charset), new byte[] {'\n'})
+                && Arrays.equals("a\n".getBytes(charset), new byte[] {'a', '\n'});
+    }
+
+    private static Chunk tokenize(FileChannel channel, long start, long end, Charset charset, WordNormalizer normalizer,
+            Chunk chunk) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        //igual que un InputStreamReader: los bytes invalidos se reemplazan
+        CharBuffer chars = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(bytes);
+        try (TokenScanner ts = new TokenScanner(new CharArrayReader(chars.array(), chars.arrayOffset(), chars.limit()))) {
+            ts.setName("TokenScannerChunk" + start);
+            while (ts.hasNext()) {
+                String token = ts.next();
+                if (TokenScanner.isWord(token)) {
+                    String word = normalizer.normalize(token);
+                    chunk.words.add(word);
+                    chunk.frequencies.word(word);
+                } else {
+                    chunk.frequencies.other(token);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private static WordFrequencies frequencies(List<Chunk> chunks) {
+        WordFrequencies frequencies = chunks.isEmpty() ? new WordFrequencies() : chunks.get(0).frequencies;
+        for (int i = 1; i < chunks.size(); i++) frequencies.addAll(chunks.get(i).frequencies);
+        return frequencies;
+    }
+}
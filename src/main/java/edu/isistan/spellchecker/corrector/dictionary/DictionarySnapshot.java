@@ -0,0 +1,212 @@
+package edu.isistan.spellchecker.corrector.dictionary;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import edu.isistan.spellchecker.corrector.dictionary.trie.CompactTrie;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Snapshot binario de un {@link CompactTrieDictionary} ya construido, para no volver a parsear el
+ * archivo de texto en cada arranque.
+ * <p>
+ * Todo en big-endian:
+ * <pre>
+ * header: int magic, int version, int normalizacion (ordinal de {@link WordNormalizer.Form}),
+ *         long largo del archivo de texto, long ultima modificacion del archivo de texto
+ * trie:   ver {@link CompactTrie#writeTo}
+ * frecuencias: int cantidad, por palabra int largo, char[largo] palabra, int frecuencia
+ * trailer: long CRC32 de todo lo anterior
+ * </pre>
+ * Decisiones:
+ * <ul>
+ * <li> El archivo se lee completo en un ByteBuffer y los arreglos del trie se copian en bloque: no se
+ * crea un objeto por nodo, asi que el arranque depende casi solo de la lectura del disco.
+ * <li> El snapshot guarda el largo y la fecha de modificacion del archivo de texto. Si no coinciden
+ * (o el checksum, el magic o la version no son los esperados) {@link #load} lo descarta, vuelve a
+ * leer el texto y reescribe el snapshot. Lo mismo si las palabras se normalizaron distinto que lo
+ * configurado ({@link WordNormalizer#getDefault()}).
+ * <li> Se escribe en un archivo temporal que despues se renombra, para que otro proceso nunca lea
+ * un snapshot a medio escribir.
+ * </ul>
+ */
+public final class DictionarySnapshot {
+    private static final Log LOG = Log.getLog(DictionarySnapshot.class);
+
+    static final int MAGIC = 0x53434453; //"SCDS"
+    static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8;
+    private static final int TRAILER_BYTES = 8;
+
+    /**
+     * El snapshot no se puede usar: esta corrupto, es de otra version o quedo viejo respecto del texto.
+     */
+    public static class InvalidSnapshotException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidSnapshotException(String msg) {
+            super(msg);
+        }
+    }
+
+    private DictionarySnapshot() {
+    }
+
+    /**
+     * Carga el diccionario desde el snapshot si esta al dia con el archivo de texto. Si no, lo construye
+     * desde el texto y reescribe el snapshot (si no se puede escribir, solo se informa).
+     *
+     * @param source archivo de palabras
+     * @param snapshot archivo del snapshot, exista o no
+     * @throws IOException error leyendo el archivo de palabras
+     */
+    public static CompactTrieDictionary load(Path source, Path snapshot) throws IOException {
+        if (Files.exists(snapshot)) {
+            try {
+                CompactTrieDictionary dict = read(snapshot, source);
+                if (dict.getNormalizer() == WordNormalizer.getDefault()) return dict;
+                LOG.info("Snapshot " + snapshot + " descartado: normalizado con " + dict.getNormalizer().getForm());
+            } catch (InvalidSnapshotException e) {
+                LOG.info("Snapshot " + snapshot + " descartado: " + e.getMessage());
+            }
+        }
+        //los atributos se toman antes de leer: si el texto cambia mientras tanto, el snapshot queda viejo
+        long size = Files.size(source);
+        long modified = Files.getLastModifiedTime(source).toMillis();
+        CompactTrieDictionary dict;
+        try (Reader r = new FileReader(source.toFile())) {
+            dict = new CompactTrieDictionary(new TokenScanner(r));
+        }
+        try {
+            write(dict, size, modified, snapshot);
+        } catch (IOException e) {
+            LOG.warn("No se pudo escribir el snapshot " + snapshot + ": " + e.getMessage());
+        }
+        return dict;
+    }
+
+    /**
+     * Escribe el snapshot del diccionario.
+     *
+     * @param dict diccionario
+     * @param source archivo de texto del que se construyo el diccionario
+     * @param snapshot archivo a escribir
+     * @throws IOException error escribiendo
+     */
+    public static void write(CompactTrieDictionary dict, Path source, Path snapshot) throws IOException {
+        write(dict, Files.size(source), Files.getLastModifiedTime(source).toMillis(), snapshot);
+    }
+
+    private static void write(CompactTrieDictionary dict, long sourceSize, long sourceModified, Path snapshot) throws IOException {
+        CompactTrie trie = dict.trie();
+        Map<String, Integer> frequencies = dict.frequencies().asMap();
+        long bytes = HEADER_BYTES + trie.serializedSize() + 4L + TRAILER_BYTES;
+        for (String word: frequencies.keySet()) bytes += 4 + word.length() * 2L + 4;
+        if (bytes > Integer.MAX_VALUE) throw new IOException("Dictionary too large for a snapshot");
+
+        ByteBuffer out = ByteBuffer.allocate((int) bytes);
+        out.putInt(MAGIC).putInt(VERSION).putInt(dict.getNormalizer().getForm().ordinal())
+                .putLong(sourceSize).putLong(sourceModified);
+        trie.writeTo(out);
+        out.putInt(frequencies.size());
+        for (Map.Entry<String, Integer> entry: frequencies.entrySet()) {
+            String word = entry.getKey();
+            out.putInt(word.length());
+            for (int i = 0; i < word.length(); i++) out.putChar(word.charAt(i));
+            out.putInt(entry.getValue());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putLong(crc.getValue());
+        out.flip();
+
+        Path absolute = snapshot.toAbsolutePath();
+        Path tmp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) channel.write(out);
+            }
+            try {
+                Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        LOG.info("Snapshot " + snapshot + " escrito (" + bytes + " bytes)");
+    }
+
+    /**
+     * Lee un snapshot.
+     *
+     * @param snapshot archivo del snapshot
+     * @param source archivo de texto contra el que se verifica que no este viejo, o null para no verificarlo
+     * @throws InvalidSnapshotException si el snapshot esta corrupto, es de otra version o quedo viejo
+     * @throws IOException error leyendo
+     */
+    public static CompactTrieDictionary read(Path snapshot, Path source) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) throw new InvalidSnapshotException("truncated");
+            if (size > Integer.MAX_VALUE) throw new InvalidSnapshotException("too large");
+            in = ByteBuffer.allocate((int) size);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                //lee hasta completar el buffer
+            }
+            if (in.hasRemaining()) throw new InvalidSnapshotException("truncated");
+        }
+        int payload = in.capacity() - TRAILER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(in.array(), 0, payload);
+        if (crc.getValue() != in.getLong(payload)) throw new InvalidSnapshotException("checksum mismatch");
+
+        in.flip();
+        in.limit(payload);
+        if (in.getInt() != MAGIC) throw new InvalidSnapshotException("not a dictionary snapshot");
+        int version = in.getInt();
+        if (version != VERSION) throw new InvalidSnapshotException("unsupported version " + version);
+        int form = in.getInt();
+        if (form < 0 || form >= WordNormalizer.Form.values().length) throw new InvalidSnapshotException("invalid normalization " + form);
+        WordNormalizer normalizer = WordNormalizer.of(WordNormalizer.Form.values()[form]);
+        long sourceSize = in.getLong();
+        long sourceModified = in.getLong();
+        if (source != null && (Files.size(source) != sourceSize
+                || Files.getLastModifiedTime(source).toMillis() != sourceModified)) {
+            throw new InvalidSnapshotException("stale, " + source + " changed");
+        }
+
+        try {
+            CompactTrie trie = CompactTrie.readFrom(in);
+            WordFrequencies frequencies = new WordFrequencies();
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                int length = in.getInt();
+                if (length < 0 || length > in.remaining() / 2) throw new InvalidSnapshotException("invalid word length");
+                char[] word = new char[length];
+                in.asCharBuffer().get(word);
+                in.position(in.position() + length * 2);
+                frequencies.put(new String(word), in.getInt());
+            }
+            LOG.info(trie.getNumWords() + " words in dictionary (snapshot " + snapshot + ")");
+            return new CompactTrieDictionary(trie, frequencies, normalizer);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new InvalidSnapshotException("corrupt: " + e.getMessage());
+        }
+    }
+}
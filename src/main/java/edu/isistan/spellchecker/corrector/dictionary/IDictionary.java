@@ -4,6 +4,10 @@ import java.io.IOException;
 import java.util.Set;
 import java.util.function.Function;
 
+import edu.isistan.spellchecker.corrector.dictionary.index.LengthIndex;
+import edu.isistan.spellchecker.corrector.impl.LevenshteinImpl;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
 /**
  * Abstraccion para poder implementar el Dictionary y el TrieDictionary por separado.
  */
@@ -14,5 +18,55 @@ public interface IDictionary {
 
     Set<String> filterBy(Function<String, Integer> f);
 
+    /**
+     * Igual que {@link #filterBy(Function)}, pero f solo se aplica a las palabras con largo entre minLength y
+     * maxLength (inclusive) y cuya firma ({@link LengthIndex#signature}) difiere de signature en
+     * maxSignatureDistance bits o menos. Las implementaciones con un {@link LengthIndex} solo recorren esos
+     * rangos; la implementacion por defecto recorre todo y descarta antes de llamar a f.
+     *
+     * @param signature firma de la palabra buscada (normalizada)
+     * @param maxSignatureDistance cota de la firma, {@link LengthIndex#ANY_SIGNATURE} para no filtrar por firma
+     */
+    default Set<String> filterBy(int minLength, int maxLength, int signature, int maxSignatureDistance,
+            Function<String, Integer> f) {
+        return filterBy(w -> w.length() >= minLength && w.length() <= maxLength
+                && LengthIndex.signatureDistance(signature, LengthIndex.signature(w)) <= maxSignatureDistance ? f.apply(w) : 0);
+    }
+
+    /**
+     * Frecuencia de la palabra, si el archivo del diccionario la trae ({@code palabra<TAB>cantidad}).
+     * Los correctores la usan para ordenar las sugerencias.
+     *
+     * @param word palabra (case insensitive)
+     * @return la frecuencia, o 0 si la palabra no esta o no tiene frecuencia
+     */
+    default int getFrequency(String word) {
+        return 0;
+    }
+
+    /**
+     * Retorna las palabras del diccionario a distancia de Levenshtein {@code maxDistance} o menos
+     * de la palabra dada (incluida la palabra misma si esta en el diccionario).
+     * <p>
+     * La implementacion por defecto recorre el diccionario con el {@link #filterBy(int, int, int, int, Function)}
+     * acotado por largo y firma. Las implementaciones con algun indice deberian sobreescribirlo.
+     *
+     * @param word palabra normalizada (ver {@link #getNormalizer()})
+     * @param maxDistance distancia maxima
+     */
+    default Set<String> getWordsWithinDistance(String word, int maxDistance) {
+        return filterBy(word.length() - maxDistance, word.length() + maxDistance, LengthIndex.signature(word),
+                LengthIndex.signatureBound(maxDistance),
+                w -> LevenshteinImpl.levenshteinDistance(word, w, maxDistance) <= maxDistance ? 1 : 0);
+    }
+
+    /**
+     * Normalizacion con la que se cargaron las palabras. Los correctores la aplican a la palabra a
+     * corregir antes de pedir candidatos, y los candidatos salen normalizados.
+     */
+    default WordNormalizer getNormalizer() {
+        return WordNormalizer.getDefault();
+    }
+
     void printAll();
 }
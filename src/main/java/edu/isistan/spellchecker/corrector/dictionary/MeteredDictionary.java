@@ -0,0 +1,114 @@
+package edu.isistan.spellchecker.corrector.dictionary;
+
+import java.util.Set;
+import java.util.function.Function;
+
+import edu.isistan.spellchecker.metrics.Counter;
+import edu.isistan.spellchecker.metrics.Histogram;
+import edu.isistan.spellchecker.metrics.Metrics;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Decorador que mide un diccionario. Las metricas se llaman {@code dictionary.<Clase>.<metrica>}:
+ * <ul>
+ * <li> {@code lookups}, {@code misses} y {@code lookupLatency} (ns) de {@link #isWord}
+ * <li> {@code fuzzyLatency} (ns) y {@code candidates} de {@link #getWordsWithinDistance}: cuantas
+ * palabras le devuelve el indice a los correctores por consulta
+ * <li> {@code scanLatency} (ns) de los {@code filterBy}
+ * </ul>
+ * Si las metricas se deshabilitan despues de crearlo, solo delega.
+ */
+public class MeteredDictionary implements IDictionary {
+    private final IDictionary dictionary;
+    private final Counter lookups;
+    private final Counter misses;
+    private final Histogram lookupLatency;
+    private final Histogram fuzzyLatency;
+    private final Histogram candidates;
+    private final Histogram scanLatency;
+
+    public MeteredDictionary(IDictionary dictionary) {
+        if (dictionary == null) throw new IllegalArgumentException("Dictionary cannot be null");
+        this.dictionary = dictionary;
+        String prefix = "dictionary." + dictionary.getClass().getSimpleName();
+        this.lookups = Metrics.counter(prefix + ".lookups");
+        this.misses = Metrics.counter(prefix + ".misses");
+        this.lookupLatency = Metrics.latency(prefix + ".lookupLatency");
+        this.fuzzyLatency = Metrics.latency(prefix + ".fuzzyLatency");
+        this.candidates = Metrics.histogram(prefix + ".candidates");
+        this.scanLatency = Metrics.latency(prefix + ".scanLatency");
+    }
+
+    /**
+     * @return el diccionario envuelto en un MeteredDictionary, o el mismo si las metricas estan
+     * deshabilitadas o ya estaba envuelto
+     */
+    public static IDictionary wrap(IDictionary dictionary) {
+        if (!Metrics.isEnabled() || dictionary instanceof MeteredDictionary) return dictionary;
+        return new MeteredDictionary(dictionary);
+    }
+
+    public IDictionary getDelegate() {
+        return dictionary;
+    }
+
+    @Override
+    public int getNumWords() {
+        return dictionary.getNumWords();
+    }
+
+    @Override
+    public boolean isWord(String word) {
+        if (!Metrics.isEnabled()) return dictionary.isWord(word);
+        long start = System.nanoTime();
+        boolean found = dictionary.isWord(word);
+        lookupLatency.record(System.nanoTime() - start);
+        lookups.increment();
+        if (!found) misses.increment();
+        return found;
+    }
+
+    @Override
+    public Set<String> filterBy(Function<String, Integer> f) {
+        if (!Metrics.isEnabled()) return dictionary.filterBy(f);
+        long start = System.nanoTime();
+        Set<String> words = dictionary.filterBy(f);
+        scanLatency.record(System.nanoTime() - start);
+        return words;
+    }
+
+    @Override
+    public Set<String> filterBy(int minLength, int maxLength, int signature, int maxSignatureDistance,
+            Function<String, Integer> f) {
+        if (!Metrics.isEnabled()) return dictionary.filterBy(minLength, maxLength, signature, maxSignatureDistance, f);
+        long start = System.nanoTime();
+        Set<String> words = dictionary.filterBy(minLength, maxLength, signature, maxSignatureDistance, f);
+        scanLatency.record(System.nanoTime() - start);
+        return words;
+    }
+
+    @Override
+    public int getFrequency(String word) {
+        return dictionary.getFrequency(word);
+    }
+
+    @Override
+    public Set<String> getWordsWithinDistance(String word, int maxDistance) {
+        if (!Metrics.isEnabled()) return dictionary.getWordsWithinDistance(word, maxDistance);
+        long start = System.nanoTime();
+        Set<String> words = dictionary.getWordsWithinDistance(word, maxDistance);
+        fuzzyLatency.record(System.nanoTime() - start);
+        candidates.record(words.size());
+        return words;
+    }
+
+    @Override
+    public WordNormalizer getNormalizer() {
+        return dictionary.getNormalizer();
+    }
+
+    @Override
+    public void printAll() {
+        dictionary.printAll();
+    }
+}
@@ -1,7 +1,9 @@
 package edu.isistan.spellchecker.corrector.dictionary;
 
 import edu.isistan.spellchecker.corrector.dictionary.trie.Trie;
+import edu.isistan.spellchecker.log.Log;
 import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
 
 import java.util.HashSet;
 import java.util.NoSuchElementException;
@@ -9,24 +11,53 @@ import java.util.Set;
 import java.util.function.Function;
 
 public class TrieDictionary implements IDictionary {
+    private static final Log LOG = Log.getLog(TrieDictionary.class);
+
     private final Trie dic;
+    private final WordNormalizer normalizer;
+    private final WordFrequencies frequencies;
+    private volatile int parallelThreshold = Dictionary.DEFAULT_PARALLEL_THRESHOLD;
 
     public TrieDictionary(TokenScanner ts) {
-        if (ts == null) throw new IllegalArgumentException();
+        this(ts, WordNormalizer.getDefault());
+    }
+
+    /**
+     * @param ts
+     * @param normalizer normalizacion de las palabras (por ejemplo sin acentos)
+     */
+    public TrieDictionary(TokenScanner ts, WordNormalizer normalizer) {
+        if (ts == null || normalizer == null) throw new IllegalArgumentException();
         ts.setName("TokenScannerTrieDictionary");
         this.dic = new Trie();
+        this.normalizer = normalizer;
+        this.frequencies = new WordFrequencies();
 
         while (ts.hasNext()) {
             try {
                 String token = ts.next();
                 if (TokenScanner.isWord(token)) {
-                    dic.insert(token.toLowerCase());
+                    String word = normalizer.normalize(token);
+                    dic.insert(word);
+                    frequencies.word(word);
+                } else {
+                    frequencies.other(token);
                 }
             } catch (NoSuchElementException nse) {
-                dictionaryLog("Finalizado.");
+                LOG.debug("Finalizado.");
             }
         }
-        dictionaryLog(dic.getNumWords() + " words in dictionary");
+        LOG.info(dic.getNumWords() + " words in dictionary");
+    }
+
+    /**
+     * Diccionario ya construido, por ejemplo por el {@link DictionaryLoader}.
+     */
+    TrieDictionary(Trie dic, WordFrequencies frequencies, WordNormalizer normalizer) {
+        this.dic = dic;
+        this.normalizer = normalizer;
+        this.frequencies = frequencies;
+        LOG.info(dic.getNumWords() + " words in dictionary");
     }
 
     @Override
@@ -36,20 +67,76 @@ public class TrieDictionary implements IDictionary {
 
     @Override
     public boolean isWord(String word) {
-        return dic.search(word.toLowerCase());
+        if (word == null) return false;
+        return dic.search(word, normalizer);
+    }
+
+    /**
+     * @param prefix prefijo a buscar (case insensitive)
+     * @return true si alguna palabra del diccionario empieza con prefix
+     */
+    public boolean startsWith(String prefix) {
+        if (prefix == null) return false;
+        return dic.startsWith(prefix, normalizer);
+    }
+
+    /**
+     * @param text texto sin normalizar (se normaliza caracter por caracter, ver {@link WordNormalizer#fold})
+     * @param from posicion donde empieza la palabra
+     * @return el largo de la palabra mas larga del diccionario que es prefijo de text desde from, o -1
+     */
+    public int longestPrefixLength(CharSequence text, int from) {
+        return dic.longestPrefixLength(text, from, normalizer);
+    }
+
+    @Override
+    public int getFrequency(String word) {
+        if (word == null) return 0;
+        return frequencies.get(normalizer.normalize(word));
+    }
+
+    @Override
+    public WordNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * @param words cantidad de palabras desde la cual filterBy y la busqueda aproximada recorren las ramas
+     * del trie en paralelo, 0 para siempre. En paralelo la funcion de filterBy tiene que ser thread-safe.
+     */
+    public void setParallelThreshold(int words) {
+        if (words < 0) throw new IllegalArgumentException("Threshold must not be negative");
+        this.parallelThreshold = words;
     }
 
     @Override
     public Set<String> filterBy(Function<String, Integer> f) {
-        return dic.filterBy(f);
+        return dic.getNumWords() >= parallelThreshold ? dic.parallelFilterBy(f) : dic.filterBy(f);
     }
 
+    /**
+     * El recorrido no baja mas alla de maxLength, y el largo minimo y la firma se chequean sobre el camino,
+     * antes de crear el String. En paralelo se usa el recorrido completo con el mismo filtro.
+     */
     @Override
-    public void printAll() {
-        dic.printTrie();
+    public Set<String> filterBy(int minLength, int maxLength, int signature, int maxSignatureDistance,
+            Function<String, Integer> f) {
+        if (dic.getNumWords() >= parallelThreshold) {
+            return IDictionary.super.filterBy(minLength, maxLength, signature, maxSignatureDistance, f);
+        }
+        return dic.filterBy(minLength, maxLength, signature, maxSignatureDistance, f);
     }
 
-    private void dictionaryLog(Object text) {
-        System.out.println("TrieDictionary: " + text);
+    /**
+     * El trie hace de indice: la busqueda aproximada solo visita los nodos cercanos a la palabra.
+     */
+    @Override
+    public Set<String> getWordsWithinDistance(String word, int maxDistance) {
+        return dic.getNumWords() >= parallelThreshold ? dic.parallelFuzzySearch(word, maxDistance) : dic.fuzzySearch(word, maxDistance);
+    }
+
+    @Override
+    public void printAll() {
+        dic.printTrie();
     }
 }
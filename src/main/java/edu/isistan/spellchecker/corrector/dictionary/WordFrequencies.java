@@ -0,0 +1,100 @@
+package edu.isistan.spellchecker.corrector.dictionary;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Junta las frecuencias opcionales de un archivo de diccionario mientras se tokeniza.
+ * <p>
+ * Una linea puede tener una segunda columna con la cantidad de apariciones de la palabra
+ * ({@code palabra<TAB>cantidad}). El diccionario le pasa cada token: si despues de una palabra,
+ * en la misma linea y separado solo por blancos, viene un numero, es su frecuencia.
+ * Las palabras repetidas suman sus frecuencias. Las palabras sin frecuencia no ocupan lugar.
+ */
+class WordFrequencies {
+    private final Map<String, Integer> counts = new HashMap<>();
+    private String pending;
+
+    /**
+     * @param word palabra en lower-case recien agregada al diccionario
+     */
+    void word(String word) {
+        pending = word;
+    }
+
+    /**
+     * @param token cualquier token que no es palabra
+     */
+    void other(String token) {
+        if (pending == null) return;
+        if (isNumber(token)) {
+            try {
+                counts.merge(pending, Integer.parseInt(token), WordFrequencies::saturatedAdd);
+            } catch (NumberFormatException tooBig) {
+                counts.put(pending, Integer.MAX_VALUE);
+            }
+            pending = null;
+        } else if (!isBlank(token)) {
+            pending = null;
+        }
+    }
+
+    /**
+     * @return la frecuencia de la palabra en lower-case, 0 si no tiene
+     */
+    int get(String word) {
+        Integer count = counts.get(word);
+        return count == null ? 0 : count;
+    }
+
+    int size() {
+        return counts.size();
+    }
+
+    /**
+     * Carga una frecuencia ya calculada, por ejemplo desde un snapshot.
+     */
+    void put(String word, int count) {
+        counts.put(word, count);
+    }
+
+    /**
+     * Suma las frecuencias de otro archivo o de otra parte del mismo archivo (ver DictionaryLoader).
+     */
+    void addAll(WordFrequencies other) {
+        other.counts.forEach((word, count) -> counts.merge(word, count, WordFrequencies::saturatedAdd));
+    }
+
+    /**
+     * @return las frecuencias, por palabra (solo lectura)
+     */
+    Map<String, Integer> asMap() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private static boolean isNumber(String token) {
+        if (token.isEmpty()) return false;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Un blanco que no es salto de linea: la frecuencia tiene que estar en la misma linea que la palabra.
+     */
+    private static boolean isBlank(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '\n' || c == '\r' || !Character.isWhitespace(c)) return false;
+        }
+        return true;
+    }
+
+    private static int saturatedAdd(int a, int b) {
+        long sum = (long) a + b;
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+}
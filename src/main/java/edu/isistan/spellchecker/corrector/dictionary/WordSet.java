@@ -0,0 +1,198 @@
+package edu.isistan.spellchecker.corrector.dictionary;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Set de palabras normalizadas del {@link Dictionary} que se puede consultar con una palabra sin normalizar,
+ * sin copiarla: {@link #contains(CharSequence, WordNormalizer)} normaliza caracter por caracter mientras
+ * calcula el hash y mientras compara.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Direccionamiento abierto sobre un String[] con los hashes al lado en un int[]: en una colision se
+ * compara el hash sin tocar el String.
+ * <li> El hash es el de {@link String#hashCode()} de la palabra normalizada, asi {@link #contains(Object)}
+ * con una palabra ya normalizada usa el hash que el String tiene cacheado.
+ * <li> No se pueden borrar palabras. El spliterator parte el arreglo por rangos, para los streams paralelos.
+ * </ul>
+ */
+final class WordSet extends AbstractSet<String> {
+    private String[] words;
+    private int[] hashes;
+    private int mask;
+    private int size;
+
+    WordSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) * 2;
+        this.words = new String[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param word palabra ya normalizada
+     */
+    @Override
+    public boolean add(String word) {
+        int h = word.hashCode();
+        int slot = mix(h) & mask;
+        String existing;
+        while ((existing = words[slot]) != null) {
+            if (hashes[slot] == h && existing.equals(word)) return false;
+            slot = (slot + 1) & mask;
+        }
+        words[slot] = word;
+        hashes[slot] = h;
+        //factor de carga maximo 1/2
+        if (++size * 2 > words.length) rehash();
+        return true;
+    }
+
+    /**
+     * @param o palabra ya normalizada
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) return false;
+        String word = (String) o;
+        int h = word.hashCode();
+        for (int slot = mix(h) & mask; words[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == h && words[slot].equals(word)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param word palabra sin normalizar
+     * @param normalizer el normalizador con el que se cargaron las palabras
+     */
+    boolean contains(CharSequence word, WordNormalizer normalizer) {
+        CharSequence key = normalizer.forLookup(word);
+        if (key != word) return contains(key.toString());
+        int h = normalizer.hash(word);
+        for (int slot = mix(h) & mask; words[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == h && normalizer.equalsNormalized(words[slot], word)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < words.length && words[from] == null) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < words.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                String word = words[next];
+                next = advance(next + 1);
+                return word;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<String> spliterator() {
+        return new RangeSpliterator(words, 0, words.length, size);
+    }
+
+    private void rehash() {
+        String[] oldWords = words;
+        int[] oldHashes = hashes;
+        words = new String[oldWords.length * 2];
+        hashes = new int[oldWords.length * 2];
+        mask = words.length - 1;
+        for (int i = 0; i < oldWords.length; i++) {
+            if (oldWords[i] == null) continue;
+            int slot = mix(oldHashes[i]) & mask;
+            while (words[slot] != null) slot = (slot + 1) & mask;
+            words[slot] = oldWords[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    /**
+     * Mezcla los bits altos en los bajos: con sondeo lineal, el hash polinomico de palabras parecidas se amontona.
+     */
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Recorre un rango de slots. El tamanio es una estimacion: proporcional al largo del rango.
+     */
+    private static final class RangeSpliterator implements Spliterator<String> {
+        private final String[] words;
+        private int from;
+        private final int to;
+        private long estimate;
+
+        RangeSpliterator(String[] words, int from, int to, long estimate) {
+            this.words = words;
+            this.from = from;
+            this.to = to;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            while (from < to) {
+                String word = words[from++];
+                if (word != null) {
+                    action.accept(word);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action) {
+            for (; from < to; from++) {
+                if (words[from] != null) action.accept(words[from]);
+            }
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            int middle = (from + to) >>> 1;
+            if (middle - from < 64) return null;
+            estimate >>>= 1;
+            Spliterator<String> prefix = new RangeSpliterator(words, from, middle, estimate);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+}
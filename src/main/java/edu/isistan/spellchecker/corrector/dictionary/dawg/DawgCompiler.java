@@ -0,0 +1,239 @@
+package edu.isistan.spellchecker.corrector.dictionary.dawg;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Compila una lista de palabras a un DAWG minimo (automata aciclico determinista) en el formato
+ * de {@link DawgFormat}, para abrirlo despues con {@link MappedDawgDictionary}.
+ * <p>
+ * Usa el algoritmo incremental de Daciuk et al. para entrada ordenada: cada palabra nueva comparte
+ * el prefijo comun con la anterior, y la rama de la anterior que ya no va a cambiar se minimiza
+ * reemplazando cada nodo por uno equivalente ya registrado.
+ * <p>
+ * Puede usarse desde linea de comando:
+ * <code>java DawgCompiler {@code palabras.txt} {@code salida.dawg}</code>
+ */
+public class DawgCompiler {
+
+    /**
+     * Nodo del automata en construccion. Una vez registrado no cambia, por eso puede ser clave del registro:
+     * dos nodos son equivalentes si tienen la misma marca de final y las mismas aristas a los mismos nodos.
+     */
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] targets = new Node[0];
+        private boolean terminal;
+
+        Node lastChild() {
+            return targets.length == 0 ? null : targets[targets.length - 1];
+        }
+
+        void addChild(char label, Node child) {
+            int n = labels.length;
+            labels = Arrays.copyOf(labels, n + 1);
+            targets = Arrays.copyOf(targets, n + 1);
+            labels[n] = label;
+            targets[n] = child;
+        }
+
+        Node child(char label) {
+            //las palabras llegan ordenadas: si existe, es el ultimo hijo
+            int n = labels.length;
+            return n > 0 && labels[n - 1] == label ? targets[n - 1] : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node)) return false;
+            Node other = (Node) o;
+            if (terminal != other.terminal || !Arrays.equals(labels, other.labels)) return false;
+            for (int i = 0; i < targets.length; i++) {
+                if (targets[i] != other.targets[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = terminal ? 1 : 0;
+            for (int i = 0; i < labels.length; i++) {
+                h = 31 * h + labels[i];
+                h = 31 * h + System.identityHashCode(targets[i]);
+            }
+            return h;
+        }
+    }
+
+    private final WordNormalizer normalizer;
+    private final Node root = new Node();
+    private final Map<Node, Node> register = new HashMap<>();
+    private String previous = "";
+    private int count = 0;
+
+    private DawgCompiler(WordNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Compila las palabras del reader (mismo criterio que el Dictionary: tokens palabra, normalizados con
+     * {@link WordNormalizer#getDefault()}) y escribe el DAWG en out.
+     *
+     * @param words fuente de palabras. No se cierra.
+     * @param out archivo de salida
+     * @throws IOException error leyendo o escribiendo
+     */
+    public static void compile(Reader words, Path out) throws IOException {
+        compile(words, out, WordNormalizer.getDefault());
+    }
+
+    /**
+     * Igual que {@link #compile(Reader, Path)}, con la normalizacion dada. Queda guardada en el archivo.
+     *
+     * @param normalizer normalizacion de las palabras
+     */
+    public static void compile(Reader words, Path out, WordNormalizer normalizer) throws IOException {
+        TreeSet<String> sorted = new TreeSet<>();
+        TokenScanner ts = new TokenScanner(words);
+        ts.setName("TokenScannerDawgCompiler");
+        while (ts.hasNext()) {
+            try {
+                String token = ts.next();
+                if (TokenScanner.isWord(token)) sorted.add(normalizer.normalize(token));
+            } catch (NoSuchElementException nse) {
+                break;
+            }
+        }
+        compile(sorted, out, normalizer);
+    }
+
+    /**
+     * @param sortedWords palabras sin repetir, en orden lexicografico de char, normalizadas con
+     * {@link WordNormalizer#getDefault()}
+     * @param out archivo de salida
+     */
+    public static void compile(Iterable<String> sortedWords, Path out) throws IOException {
+        compile(sortedWords, out, WordNormalizer.getDefault());
+    }
+
+    /**
+     * @param sortedWords palabras sin repetir, en orden lexicografico de char, ya normalizadas
+     * @param out archivo de salida
+     * @param normalizer normalizacion con la que se normalizaron las palabras
+     */
+    public static void compile(Iterable<String> sortedWords, Path out, WordNormalizer normalizer) throws IOException {
+        DawgCompiler compiler = new DawgCompiler(normalizer);
+        for (String word: sortedWords) {
+            compiler.add(word);
+        }
+        compiler.write(out);
+    }
+
+    private void add(String word) {
+        if (word.compareTo(previous) <= 0 && count > 0) {
+            throw new IllegalArgumentException("Words must be sorted and unique: " + previous + ", " + word);
+        }
+        int prefix = 0;
+        Node last = root;
+        while (prefix < word.length() && prefix < previous.length() && word.charAt(prefix) == previous.charAt(prefix)) {
+            last = last.child(word.charAt(prefix));
+            prefix++;
+        }
+        if (last.lastChild() != null) replaceOrRegister(last);
+
+        for (int i = prefix; i < word.length(); i++) {
+            Node child = new Node();
+            last.addChild(word.charAt(i), child);
+            last = child;
+        }
+        last.terminal = true;
+        previous = word;
+        count++;
+    }
+
+    /**
+     * Minimiza la ultima rama de node: de abajo hacia arriba, cada nodo se cambia por su equivalente registrado.
+     */
+    private void replaceOrRegister(Node node) {
+        Node child = node.lastChild();
+        if (child.lastChild() != null) replaceOrRegister(child);
+        Node equivalent = register.get(child);
+        if (equivalent != null) {
+            node.targets[node.targets.length - 1] = equivalent;
+        } else {
+            register.put(child, child);
+        }
+    }
+
+    private void write(Path out) throws IOException {
+        if (root.lastChild() != null) replaceOrRegister(root);
+
+        //numeracion en BFS, la raiz es el nodo 0
+        Map<Node, Integer> ids = new IdentityHashMap<>();
+        List<Node> order = new ArrayList<>();
+        ids.put(root, 0);
+        order.add(root);
+        int edges = 0;
+        for (int i = 0; i < order.size(); i++) {
+            Node node = order.get(i);
+            edges += node.labels.length;
+            for (Node target: node.targets) {
+                if (!ids.containsKey(target)) {
+                    ids.put(target, order.size());
+                    order.add(target);
+                }
+            }
+        }
+
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+            data.writeInt(DawgFormat.MAGIC);
+            data.writeInt(DawgFormat.VERSION);
+            data.writeInt(normalizer.getForm().ordinal());
+            data.writeInt(count);
+            data.writeInt(order.size());
+            data.writeInt(edges);
+            data.writeInt(0);
+
+            int firstEdge = 0;
+            for (Node node: order) {
+                data.writeInt(firstEdge);
+                data.writeInt(node.labels.length | (node.terminal ? DawgFormat.TERMINAL_FLAG : 0));
+                firstEdge += node.labels.length;
+            }
+            for (Node node: order) {
+                for (int i = 0; i < node.labels.length; i++) {
+                    data.writeChar(node.labels[i]);
+                    data.writeInt(ids.get(node.targets[i]));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("uso: java DawgCompiler <palabras> <salida.dawg>");
+            return;
+        }
+        try (Reader in = new FileReader(args[0])) {
+            compile(in, Paths.get(args[1]));
+        }
+        System.out.println("DawgCompiler: " + args[1] + " generado");
+    }
+}
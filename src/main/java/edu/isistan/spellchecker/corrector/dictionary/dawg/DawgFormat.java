@@ -0,0 +1,30 @@
+package edu.isistan.spellchecker.corrector.dictionary.dawg;
+
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Formato binario del DAWG compartido por el {@link DawgCompiler} y el {@link MappedDawgDictionary}.
+ * <p>
+ * Todo en big-endian:
+ * <pre>
+ * header: int magic, int version, int normalizacion (ordinal de {@link WordNormalizer.Form}), int palabras,
+ *         int nodos, int aristas, int raiz
+ * nodos:  por nodo, int primera arista, int cantidad de aristas (el bit 31 indica si es final de palabra)
+ * aristas: por arista, char caracter, int nodo destino. Las aristas de un nodo estan ordenadas por caracter.
+ * </pre>
+ * La normalizacion es la que se aplico a las palabras al compilar: el diccionario la usa para las busquedas,
+ * aunque la configurada ({@link WordNormalizer#getDefault()}) sea otra.
+ */
+final class DawgFormat {
+    static final int MAGIC = 0x44415747; //"DAWG"
+    static final int VERSION = 2;
+
+    static final int HEADER_BYTES = 7 * 4;
+    static final int NODE_BYTES = 4 + 4;
+    static final int EDGE_BYTES = 2 + 4;
+
+    static final int TERMINAL_FLAG = 1 << 31;
+
+    private DawgFormat() {
+    }
+}
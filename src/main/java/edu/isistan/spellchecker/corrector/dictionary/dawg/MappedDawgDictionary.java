@@ -0,0 +1,232 @@
+package edu.isistan.spellchecker.corrector.dictionary.dawg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Diccionario de solo lectura sobre un DAWG generado por el {@link DawgCompiler}.
+ * <p>
+ * El archivo se abre con {@link FileChannel#map}: no se parsea ni se crean objetos por palabra,
+ * asi que abrirlo es practicamente instantaneo y todas las JVMs que usan el mismo archivo comparten
+ * las paginas del cache del sistema operativo. Todas las lecturas son absolutas sobre el buffer,
+ * por lo que el diccionario puede compartirse entre threads.
+ */
+public class MappedDawgDictionary implements IDictionary {
+    private static final int NONE = -1;
+
+    private static final Log LOG = Log.getLog(MappedDawgDictionary.class);
+
+    private final ByteBuffer buffer;
+    private final WordNormalizer normalizer;
+    private final int numWords;
+    private final int numNodes;
+    private final int root;
+    private final int nodesOffset;
+    private final int edgesOffset;
+
+    /**
+     * @param file archivo generado por el DawgCompiler
+     * @throws IOException si no se puede leer o no tiene el formato esperado
+     */
+    public MappedDawgDictionary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //el mapeo sigue siendo valido despues de cerrar el channel
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < DawgFormat.HEADER_BYTES || buffer.getInt(0) != DawgFormat.MAGIC) {
+            throw new IOException("Not a DAWG dictionary: " + file);
+        }
+        if (buffer.getInt(4) != DawgFormat.VERSION) {
+            throw new IOException("Unsupported DAWG version " + buffer.getInt(4) + ": " + file);
+        }
+        int form = buffer.getInt(8);
+        if (form < 0 || form >= WordNormalizer.Form.values().length) {
+            throw new IOException("Invalid DAWG normalization " + form + ": " + file);
+        }
+        this.normalizer = WordNormalizer.of(WordNormalizer.Form.values()[form]);
+        if (normalizer != WordNormalizer.getDefault()) {
+            LOG.warn(file + " fue compilado con normalizacion " + normalizer.getForm() + ", se usa esa en lugar de "
+                    + WordNormalizer.getDefault().getForm());
+        }
+        this.numWords = buffer.getInt(12);
+        this.numNodes = buffer.getInt(16);
+        int numEdges = buffer.getInt(20);
+        this.root = buffer.getInt(24);
+        if (numWords < 0 || numNodes < 0 || numEdges < 0 || root < 0 || root >= numNodes) {
+            throw new IOException("Corrupt DAWG header: " + file);
+        }
+        //en long: con un header corrupto la cuenta en int puede desbordar y pasar el chequeo de tamanio
+        long edges = DawgFormat.HEADER_BYTES + (long) numNodes * DawgFormat.NODE_BYTES;
+        if (buffer.capacity() != edges + (long) numEdges * DawgFormat.EDGE_BYTES) {
+            throw new IOException("Truncated DAWG dictionary: " + file);
+        }
+        this.nodesOffset = DawgFormat.HEADER_BYTES;
+        this.edgesOffset = (int) edges;
+    }
+
+    /**
+     * Abre un diccionario ya compilado.
+     *
+     * @param filename archivo .dawg
+     */
+    public static MappedDawgDictionary make(String filename) throws IOException {
+        return new MappedDawgDictionary(Paths.get(filename));
+    }
+
+    @Override
+    public int getNumWords() {
+        return numWords;
+    }
+
+    @Override
+    public boolean isWord(String word) {
+        if (word == null) return false;
+        //igual que en el trie: se normaliza caracter por caracter mientras se baja, sin copiar la palabra
+        CharSequence key = normalizer.forLookup(word);
+        int node = root;
+        for (int i = 0; i < key.length() && node != NONE; i++) {
+            node = child(node, normalizer.fold(key.charAt(i)));
+        }
+        return node != NONE && isTerminal(node);
+    }
+
+    /**
+     * La normalizacion guardada en el archivo al compilarlo.
+     */
+    @Override
+    public WordNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    @Override
+    public Set<String> filterBy(Function<String, Integer> f) {
+        Set<String> words = new HashSet<>();
+        filterByRecursive(root, f, new char[16], 0, words);
+        return words;
+    }
+
+    private char[] filterByRecursive(int node, Function<String, Integer> f, char[] path, int depth, Set<String> words) {
+        if (isTerminal(node)) {
+            String word = new String(path, 0, depth);
+            if (f.apply(word) == 1) words.add(word);
+        }
+        int first = firstEdge(node);
+        int end = first + edgeCount(node);
+        for (int e = first; e < end; e++) {
+            if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+            path[depth] = label(e);
+            path = filterByRecursive(target(e), f, path, depth + 1, words);
+        }
+        return path;
+    }
+
+    /**
+     * Recorre el DAWG llevando la fila de programacion dinamica, podando como el Trie#fuzzySearch.
+     */
+    @Override
+    public Set<String> getWordsWithinDistance(String word, int maxDistance) {
+        Set<String> words = new HashSet<>();
+        int n = word.length();
+        int maxDepth = n + maxDistance;
+        int[][] rows = new int[maxDepth + 1][n + 1];
+        for (int j = 0; j <= n; j++) rows[0][j] = j;
+
+        if (isTerminal(root) && rows[0][n] <= maxDistance) words.add("");
+        fuzzySearchRecursive(root, word, maxDistance, rows, new char[maxDepth], 0, words);
+        return words;
+    }
+
+    private void fuzzySearchRecursive(int node, String word, int maxDistance, int[][] rows, char[] path, int depth, Set<String> words) {
+        if (depth == path.length) return;
+        int n = word.length();
+        int[] prev = rows[depth];
+        int[] row = rows[depth + 1];
+
+        int first = firstEdge(node);
+        int end = first + edgeCount(node);
+        for (int e = first; e < end; e++) {
+            char c = label(e);
+            row[0] = prev[0] + 1;
+            int rowMin = row[0];
+            for (int j = 1; j <= n; j++) {
+                int v = prev[j - 1] + (word.charAt(j - 1) == c ? 0 : 1);
+                if (prev[j] + 1 < v) v = prev[j] + 1;
+                if (row[j - 1] + 1 < v) v = row[j - 1] + 1;
+                row[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (rowMin > maxDistance) continue;
+
+            path[depth] = c;
+            int child = target(e);
+            if (isTerminal(child) && row[n] <= maxDistance) {
+                words.add(new String(path, 0, depth + 1));
+            }
+            fuzzySearchRecursive(child, word, maxDistance, rows, path, depth + 1, words);
+        }
+    }
+
+    @Override
+    public void printAll() {
+        filterBy(word -> {
+            System.out.println(word);
+            return 0;
+        });
+    }
+
+    /**
+     * @return cantidad de nodos del DAWG minimizado
+     */
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Busqueda binaria entre las aristas (ordenadas) del nodo.
+     * @return el nodo destino de la arista con el caracter c, o NONE
+     */
+    private int child(int node, char c) {
+        int low = firstEdge(node);
+        int high = low + edgeCount(node) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = label(mid);
+            if (label < c) low = mid + 1;
+            else if (label > c) high = mid - 1;
+            else return target(mid);
+        }
+        return NONE;
+    }
+
+    private int firstEdge(int node) {
+        return buffer.getInt(nodesOffset + node * DawgFormat.NODE_BYTES);
+    }
+
+    private int edgeCount(int node) {
+        return buffer.getInt(nodesOffset + node * DawgFormat.NODE_BYTES + 4) & ~DawgFormat.TERMINAL_FLAG;
+    }
+
+    private boolean isTerminal(int node) {
+        return (buffer.getInt(nodesOffset + node * DawgFormat.NODE_BYTES + 4) & DawgFormat.TERMINAL_FLAG) != 0;
+    }
+
+    private char label(int edge) {
+        return buffer.getChar(edgesOffset + edge * DawgFormat.EDGE_BYTES);
+    }
+
+    private int target(int edge) {
+        return buffer.getInt(edgesOffset + edge * DawgFormat.EDGE_BYTES + 2);
+    }
+}
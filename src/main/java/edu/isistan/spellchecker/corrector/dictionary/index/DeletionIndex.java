@@ -0,0 +1,121 @@
+package edu.isistan.spellchecker.corrector.dictionary.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indice de vecindario por borrado (symmetric delete, al estilo SymSpell).
+ * <p>
+ * Para cada palabra del diccionario se precalculan todas las variantes que resultan de borrar
+ * hasta {@code maxDistance} caracteres, y se guarda variante -> palabras. Dos palabras a distancia
+ * de Levenshtein k comparten al menos una variante con k borrados o menos, entonces para buscar
+ * candidatos alcanza con generar los borrados de la consulta y buscarlos en el indice.
+ * <p>
+ * Los candidatos son un superconjunto de las palabras a distancia menor o igual a {@code maxDistance}:
+ * hay que verificarlos con la distancia real. Decision: las palabras se guardan una sola vez en
+ * {@code words} y el indice solo guarda sus ids.
+ */
+public class DeletionIndex {
+    private static final int[] NO_IDS = new int[0];
+
+    private final int maxDistance;
+    private final List<String> words;
+    private final Map<String, int[]> deletes;
+
+    /**
+     * @param maxDistance cantidad maxima de borrados a indexar (en general 1 o 2)
+     * @throws IllegalArgumentException si maxDistance es menor a 1
+     */
+    public DeletionIndex(int maxDistance) {
+        if (maxDistance < 1) throw new IllegalArgumentException("maxDistance must be at least 1");
+        this.maxDistance = maxDistance;
+        this.words = new ArrayList<>();
+        this.deletes = new HashMap<>();
+    }
+
+    /**
+     * Construye el indice para todas las palabras dadas.
+     */
+    public static DeletionIndex build(Iterable<String> words, int maxDistance) {
+        DeletionIndex index = new DeletionIndex(maxDistance);
+        for (String word: words) {
+            index.add(word);
+        }
+        return index;
+    }
+
+    /**
+     * Agrega una palabra al indice. Se asume que la palabra ya viene normalizada (lower-case)
+     * y que no fue agregada antes.
+     */
+    public void add(String word) {
+        int id = words.size();
+        words.add(word);
+        for (String variant: variants(word)) {
+            int[] ids = deletes.get(variant);
+            if (ids == null) {
+                deletes.put(variant, new int[]{id});
+            } else { //casi siempre son listas de 1 o 2 elementos, no vale la pena un ArrayList
+                int[] grown = new int[ids.length + 1];
+                System.arraycopy(ids, 0, grown, 0, ids.length);
+                grown[ids.length] = id;
+                deletes.put(variant, grown);
+            }
+        }
+    }
+
+    /**
+     * Retorna las palabras que podrian estar a distancia {@code maxDistance} o menos de la palabra dada.
+     * El resultado debe verificarse con la distancia real.
+     *
+     * @param word palabra ya normalizada
+     * @return candidatos (potencialmente vacio)
+     */
+    public Set<String> candidates(String word) {
+        Set<String> result = new HashSet<>();
+        for (String variant: variants(word)) {
+            for (int id: deletes.getOrDefault(variant, NO_IDS)) {
+                result.add(words.get(id));
+            }
+        }
+        return result;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * @return la palabra y todas sus variantes con hasta maxDistance borrados, sin repetidos
+     */
+    private Set<String> variants(String word) {
+        return variants(word, maxDistance);
+    }
+
+    /**
+     * @param word palabra ya normalizada
+     * @param maxDistance cantidad maxima de borrados
+     * @return la palabra y todas sus variantes con hasta maxDistance borrados, sin repetidos
+     */
+    public static Set<String> variants(String word, int maxDistance) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> frontier = new ArrayList<>();
+        frontier.add(word);
+        for (int d = 0; d < maxDistance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String w: frontier) {
+                for (int i = 0; i < w.length(); i++) {
+                    String deleted = w.substring(0, i) + w.substring(i + 1);
+                    if (result.add(deleted)) next.add(deleted);
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,117 @@
+package edu.isistan.spellchecker.corrector.dictionary.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Indice de las palabras por largo, con la firma de cada palabra al lado.
+ * <p>
+ * Casi todos los filtros de los correctores descartan por largo: a distancia k solo pueden estar las
+ * palabras con largo entre n - k y n + k. La firma es un int con un bit por cada letra (modulo 32) que
+ * aparece en la palabra; cada edicion cambia a lo sumo dos bits (una sustitucion saca una letra y pone
+ * otra, un borrado o una insercion cambian uno, un swap ninguno), asi que a distancia k las firmas
+ * difieren en 2k bits o menos.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Las palabras se guardan una sola vez, ordenadas por largo, en un unico String[]: cada largo es un
+ * rango contiguo ({@code starts[largo]} a {@code starts[largo + 1]}), y un rango de largos tambien.
+ * <li> Las firmas van en un int[] paralelo, asi el filtro por firma recorre ints sin tocar los Strings.
+ * <li> El indice no se modifica: se arma una vez con todas las palabras.
+ * </ul>
+ */
+public final class LengthIndex {
+    /**
+     * Cota de firma que no descarta nada.
+     */
+    public static final int ANY_SIGNATURE = Integer.SIZE;
+
+    private final String[] words;
+    private final int[] signatures;
+    private final int[] starts; //starts[l] es la primera palabra de largo l; tiene maxLength + 2 posiciones
+
+    private LengthIndex(String[] words, int[] signatures, int[] starts) {
+        this.words = words;
+        this.signatures = signatures;
+        this.starts = starts;
+    }
+
+    /**
+     * Construye el indice para todas las palabras dadas (ya normalizadas y sin repetidos).
+     */
+    public static LengthIndex build(Collection<String> words) {
+        int maxLength = 0;
+        for (String word: words) maxLength = Math.max(maxLength, word.length());
+        //counting sort por largo
+        int[] starts = new int[maxLength + 2];
+        for (String word: words) starts[word.length() + 1]++;
+        for (int l = 1; l < starts.length; l++) starts[l] += starts[l - 1];
+        int[] next = Arrays.copyOf(starts, starts.length);
+        String[] sorted = new String[starts[maxLength + 1]];
+        int[] signatures = new int[sorted.length];
+        for (String word: words) {
+            int i = next[word.length()]++;
+            sorted[i] = word;
+            signatures[i] = signature(word);
+        }
+        return new LengthIndex(sorted, signatures, starts);
+    }
+
+    /**
+     * @return un bit por cada letra (modulo 32) que aparece en la palabra
+     */
+    public static int signature(CharSequence word) {
+        int signature = 0;
+        for (int i = 0; i < word.length(); i++) signature |= 1 << word.charAt(i);
+        return signature;
+    }
+
+    /**
+     * @return cantidad de bits en que difieren las dos firmas
+     */
+    public static int signatureDistance(int a, int b) {
+        return Integer.bitCount(a ^ b);
+    }
+
+    /**
+     * @return la cota de firma para palabras a distancia de edicion maxDistance o menos
+     */
+    public static int signatureBound(int maxDistance) {
+        return maxDistance >= ANY_SIGNATURE / 2 ? ANY_SIGNATURE : 2 * maxDistance;
+    }
+
+    /**
+     * @return cantidad de palabras con largo entre minLength y maxLength (sin filtrar por firma)
+     */
+    public int count(int minLength, int maxLength) {
+        return Math.max(0, start(maxLength + 1) - start(minLength));
+    }
+
+    /**
+     * Pasa al consumer las palabras con largo entre minLength y maxLength (inclusive) cuya firma difiere
+     * de signature en maxSignatureDistance bits o menos.
+     */
+    public void forEach(int minLength, int maxLength, int signature, int maxSignatureDistance, Consumer<String> consumer) {
+        int end = start(maxLength + 1);
+        for (int i = start(minLength); i < end; i++) {
+            if (signatureDistance(signature, signatures[i]) <= maxSignatureDistance) consumer.accept(words[i]);
+        }
+    }
+
+    /**
+     * Igual que {@link #forEach}, como stream: en paralelo, el rango se reparte entre los threads.
+     */
+    public Stream<String> stream(int minLength, int maxLength, int signature, int maxSignatureDistance, boolean parallel) {
+        IntStream range = IntStream.range(start(minLength), start(maxLength + 1));
+        if (parallel) range = range.parallel();
+        return range.filter(i -> signatureDistance(signature, signatures[i]) <= maxSignatureDistance).mapToObj(i -> words[i]);
+    }
+
+    private int start(int length) {
+        if (length <= 0) return 0;
+        return length < starts.length ? starts[length] : words.length;
+    }
+}
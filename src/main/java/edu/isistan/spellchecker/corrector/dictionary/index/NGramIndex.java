@@ -0,0 +1,226 @@
+package edu.isistan.spellchecker.corrector.dictionary.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.isistan.spellchecker.corrector.impl.LevenshteinImpl;
+
+/**
+ * Indice invertido de trigramas de caracteres: trigrama -> ids de las palabras que lo contienen.
+ * <p>
+ * Cada palabra se completa con dos marcas al principio y dos al final, asi una palabra de largo n tiene
+ * n + 2 trigramas y tambien las palabras cortas tienen alguno. Una edicion toca a lo sumo {@link #Q}
+ * trigramas de la palabra, entonces si dos palabras estan a distancia k o menos, comparten al menos
+ * {@code max(g(x), g(y)) - k * Q} trigramas distintos (g es la cantidad de trigramas distintos de cada una).
+ * Para buscar se cuentan los trigramas compartidos con cada palabra recorriendo las listas de los
+ * trigramas de la consulta, y solo las palabras que llegan a esa cota se verifican con la distancia real.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> A diferencia del {@link DeletionIndex}, el tamanio no crece con la distancia: cada palabra aparece
+ * una vez por trigrama distinto, sirve igual para distancia 1, 2 o 3.
+ * <li> Las palabras tienen un id denso (su posicion en {@code words}). Las listas de ids estan ordenadas y
+ * guardadas una detras de otra en un unico int[]; {@code offsets} dice donde empieza cada una.
+ * <li> Un trigrama son tres chars empaquetados en un long. Los trigramas se buscan con un hash de
+ * direccionamiento abierto sobre un long[], sin objetos por trigrama.
+ * <li> Los contadores de la consulta son un int[] por thread que se limpia solo en las posiciones tocadas.
+ * <li> Si la cota no descarta nada (palabras cortas o distancias grandes), no hay nada que ganar con el
+ * indice: {@link #candidates} devuelve null y el que llama recorre el diccionario.
+ * <li> El indice no se modifica: se arma una vez con todas las palabras.
+ * </ul>
+ */
+public final class NGramIndex {
+    /**
+     * Largo de los n-gramas.
+     */
+    public static final int Q = 3;
+
+    private static final char PAD = '\0';
+    private static final long EMPTY = -1L;
+
+    private final String[] words;
+    private final int[] gramCounts; //trigramas distintos de cada palabra
+    private final long[] keys;      //trigramas por hash, EMPTY si esta libre
+    private final int[] slotGram;   //numero de trigrama de cada slot
+    private final int mask;
+    private final int[] offsets;    //la lista del trigrama g va de offsets[g] a offsets[g + 1]
+    private final int[] postings;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Contadores de una consulta: counts[id] son los trigramas compartidos con la palabra id.
+     */
+    private static final class Scratch {
+        final int[] counts;
+        int[] touched = new int[64];
+
+        Scratch(int words) {
+            this.counts = new int[words];
+        }
+    }
+
+    private NGramIndex(String[] words, int[] gramCounts, long[] keys, int[] slotGram, int[] offsets, int[] postings) {
+        this.words = words;
+        this.gramCounts = gramCounts;
+        this.keys = keys;
+        this.slotGram = slotGram;
+        this.mask = keys.length - 1;
+        this.offsets = offsets;
+        this.postings = postings;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(words.length));
+    }
+
+    /**
+     * Construye el indice para todas las palabras dadas (ya normalizadas y sin repetidos).
+     */
+    public static NGramIndex build(Collection<String> words) {
+        String[] ids = words.toArray(new String[0]);
+        int[] gramCounts = new int[ids.length];
+        long[][] grams = new long[ids.length][];
+        int total = 0;
+        for (int id = 0; id < ids.length; id++) {
+            grams[id] = grams(ids[id]);
+            gramCounts[id] = grams[id].length;
+            total += grams[id].length;
+        }
+
+        //numerar los trigramas y contar cuantas palabras tiene cada uno
+        long[] keys = new long[Integer.highestOneBit(Math.max(16, total) * 2)];
+        int[] slotGram = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        int[] sizes = new int[64];
+        int distinct = 0;
+        for (long[] wordGrams: grams) {
+            for (long gram: wordGrams) {
+                int slot = mix(gram) & mask;
+                while (keys[slot] != EMPTY && keys[slot] != gram) slot = (slot + 1) & mask;
+                if (keys[slot] == EMPTY) {
+                    keys[slot] = gram;
+                    slotGram[slot] = distinct++;
+                    if (distinct == sizes.length) sizes = Arrays.copyOf(sizes, distinct * 2);
+                }
+                sizes[slotGram[slot]]++;
+            }
+        }
+
+        //las listas una detras de otra; los ids se agregan en orden, asi cada lista queda ordenada
+        int[] offsets = new int[distinct + 1];
+        for (int g = 0; g < distinct; g++) offsets[g + 1] = offsets[g] + sizes[g];
+        int[] next = Arrays.copyOf(offsets, distinct);
+        int[] postings = new int[total];
+        for (int id = 0; id < ids.length; id++) {
+            for (long gram: grams[id]) {
+                int slot = mix(gram) & mask;
+                while (keys[slot] != gram) slot = (slot + 1) & mask;
+                postings[next[slotGram[slot]]++] = id;
+            }
+            grams[id] = null;
+        }
+        return new NGramIndex(ids, gramCounts, keys, slotGram, offsets, postings);
+    }
+
+    /**
+     * @return cantidad de palabras indexadas
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * @return cantidad de trigramas distintos
+     */
+    public int grams() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param id id de la palabra, entre 0 y {@link #size()}
+     */
+    public String word(int id) {
+        return words[id];
+    }
+
+    /**
+     * Retorna las palabras a distancia de Levenshtein {@code maxDistance} o menos de la palabra dada
+     * (incluida la palabra misma si esta). Los candidatos del conteo de trigramas ya salen verificados.
+     *
+     * @param word palabra ya normalizada
+     * @param maxDistance distancia maxima
+     * @return las palabras, o null si para esta palabra y distancia el conteo no puede descartar ninguna
+     * palabra (hay que recorrer el diccionario)
+     */
+    public Set<String> candidates(String word, int maxDistance) {
+        long[] queryGrams = grams(word);
+        int slack = maxDistance * Q;
+        //una palabra sin trigramas en comun tambien podria estar a distancia maxDistance
+        if (queryGrams.length <= slack) return null;
+
+        Scratch s = scratch.get();
+        int[] counts = s.counts;
+        int touched = 0;
+        for (long gram: queryGrams) {
+            int g = find(gram);
+            if (g < 0) continue;
+            for (int p = offsets[g]; p < offsets[g + 1]; p++) {
+                int id = postings[p];
+                if (counts[id]++ == 0) {
+                    if (touched == s.touched.length) s.touched = Arrays.copyOf(s.touched, touched * 2);
+                    s.touched[touched++] = id;
+                }
+            }
+        }
+
+        Set<String> result = new HashSet<>();
+        int length = word.length();
+        for (int i = 0; i < touched; i++) {
+            int id = s.touched[i];
+            int shared = counts[id];
+            counts[id] = 0;
+            if (shared < Math.max(queryGrams.length, gramCounts[id]) - slack) continue;
+            String candidate = words[id];
+            if (Math.abs(candidate.length() - length) > maxDistance) continue;
+            if (LevenshteinImpl.levenshteinDistance(word, candidate, maxDistance) <= maxDistance) result.add(candidate);
+        }
+        return result;
+    }
+
+    /**
+     * @return el numero del trigrama, o -1 si no esta en el indice
+     */
+    private int find(long gram) {
+        for (int slot = mix(gram) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == gram) return slotGram[slot];
+        }
+        return -1;
+    }
+
+    /**
+     * @return los trigramas distintos de la palabra completada con las marcas, ordenados
+     */
+    static long[] grams(String word) {
+        int n = word.length() + Q - 1;
+        long[] grams = new long[n];
+        for (int i = 0; i < n; i++) {
+            long gram = 0;
+            for (int j = i - (Q - 1); j <= i; j++) {
+                char c = j >= 0 && j < word.length() ? word.charAt(j) : PAD;
+                gram = (gram << 16) | c;
+            }
+            grams[i] = gram;
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) grams[distinct++] = grams[i];
+        }
+        return distinct == n ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    private static int mix(long gram) {
+        long h = gram * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,12 @@
+package edu.isistan.spellchecker.corrector.dictionary.trie;
+
+/**
+ * Recibe las palabras de un recorrido del trie (ver {@link Trie#forEachWord}).
+ * <p>
+ * La secuencia que se recibe es una vista sobre el buffer del recorrido: solo es valida durante la llamada
+ * y cambia con la palabra siguiente. Para guardarla hay que copiarla con {@code toString()}.
+ */
+@FunctionalInterface
+public interface CharSequenceConsumer {
+    void accept(CharSequence word);
+}
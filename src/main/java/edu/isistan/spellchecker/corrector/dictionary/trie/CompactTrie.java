@@ -0,0 +1,461 @@
+package edu.isistan.spellchecker.corrector.dictionary.trie;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
+
+/**
+ * Trie compacto: los nodos no son objetos sino posiciones en arreglos paralelos.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Cada nodo guarda el caracter por el que se llega a el, su primer hijo y su siguiente hermano
+ * (representacion hijo-izquierdo / hermano-derecho). Son 10 bytes por nodo, contra un TrieNode con su
+ * HashMap, sus entradas y las claves Character boxeadas.
+ * <li> Los hermanos se mantienen ordenados por caracter, asi la busqueda de un hijo corta apenas
+ * se pasa del caracter buscado.
+ * <li> El nodo 0 es la raiz. -1 indica que no hay hijo/hermano.
+ * <li> Como todo son arreglos, se serializa y se lee con copias en bloque (ver {@link #writeTo} y
+ * {@link #readFrom}) sin crear un objeto por nodo.
+ * <li> Las busquedas exhaustivas tienen una version paralela por shards, igual que el {@link Trie}.
+ * </ul>
+ */
+public class CompactTrie {
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    private char[] labels;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private final BitSet terminal;
+
+    private int size; //cantidad de nodos
+    private int count; //cantidad de palabras
+
+    public CompactTrie() {
+        this(64);
+    }
+
+    /**
+     * @param expectedNodes capacidad inicial en nodos
+     */
+    public CompactTrie(int expectedNodes) {
+        int capacity = Math.max(1, expectedNodes);
+        this.labels = new char[capacity];
+        this.firstChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.terminal = new BitSet(capacity);
+        this.size = 0;
+        this.count = 0;
+        newNode((char) 0);
+    }
+
+    private CompactTrie(char[] labels, int[] firstChild, int[] nextSibling, BitSet terminal) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.terminal = terminal;
+        this.size = labels.length;
+        this.count = terminal.cardinality();
+    }
+
+    /**
+     *
+     * @param word to be inserted in the trie
+     * @return true if the word did not exist before, false otherwise
+     */
+    public boolean insert(String word) {
+        int current = ROOT;
+        for (int i = 0; i < word.length(); i++) {
+            current = childOrInsert(current, word.charAt(i));
+        }
+        if (terminal.get(current)) {
+            return false;
+        }
+        terminal.set(current);
+        count++;
+        return true;
+    }
+
+    /**
+     *
+     * @param word to search
+     * @return true if the word exists in the trie
+     */
+    public boolean search(String word) {
+        int current = findNode(word);
+        return current != NONE && terminal.get(current);
+    }
+
+    /**
+     * @param prefix prefijo a buscar
+     * @return true si alguna palabra del trie empieza con prefix
+     */
+    public boolean startsWith(String prefix) {
+        return findNode(prefix) != NONE;
+    }
+
+    /**
+     * Igual que {@link #search(String)} para una palabra sin normalizar: normaliza cada caracter mientras
+     * baja por el trie, sin copiar la palabra.
+     *
+     * @param word palabra a buscar
+     * @param normalizer normalizador con el que se cargaron las palabras
+     */
+    public boolean search(CharSequence word, WordNormalizer normalizer) {
+        int current = findNode(normalizer.forLookup(word), normalizer);
+        return current != NONE && terminal.get(current);
+    }
+
+    /**
+     * Igual que {@link #startsWith(String)} para un prefijo sin normalizar.
+     */
+    public boolean startsWith(CharSequence prefix, WordNormalizer normalizer) {
+        return findNode(normalizer.forLookup(prefix), normalizer) != NONE;
+    }
+
+    /**
+     * Ver {@link Trie#longestPrefixLength}.
+     *
+     * @return el largo de la palabra mas larga que es prefijo de text desde from, o -1
+     */
+    public int longestPrefixLength(CharSequence text, int from) {
+        int current = ROOT;
+        int longest = terminal.get(current) ? 0 : -1;
+        for (int i = from; i < text.length(); i++) {
+            current = child(current, text.charAt(i));
+            if (current == NONE) break;
+            if (terminal.get(current)) longest = i - from + 1;
+        }
+        return longest;
+    }
+
+    /**
+     * Ver {@link Trie#longestPrefixLength(CharSequence, int, WordNormalizer)}.
+     */
+    public int longestPrefixLength(CharSequence text, int from, WordNormalizer normalizer) {
+        int current = ROOT;
+        int longest = terminal.get(current) ? 0 : -1;
+        for (int i = from; i < text.length(); i++) {
+            current = child(current, normalizer.fold(text.charAt(i)));
+            if (current == NONE) break;
+            if (terminal.get(current)) longest = i - from + 1;
+        }
+        return longest;
+    }
+
+    /**
+     * @return la palabra mas larga del trie que es prefijo de text, o null si no hay ninguna
+     */
+    public String longestPrefix(String text) {
+        int length = longestPrefixLength(text, 0);
+        return length < 0 ? null : text.substring(0, length);
+    }
+
+    public int getNumWords() {
+        return count;
+    }
+
+    /**
+     * @return cantidad de nodos del trie, incluida la raiz
+     */
+    public int getNumNodes() {
+        return size;
+    }
+
+    /**
+     * Achica los arreglos al tamanio justo. Conviene llamarlo despues de cargar el diccionario.
+     */
+    public void trimToSize() {
+        labels = Arrays.copyOf(labels, size);
+        firstChild = Arrays.copyOf(firstChild, size);
+        nextSibling = Arrays.copyOf(nextSibling, size);
+    }
+
+    /**
+     * @return bytes que ocupa el trie escrito con {@link #writeTo}
+     */
+    public int serializedSize() {
+        return 4 + size * (2 + 4 + 4) + 4 + terminal.toLongArray().length * 8;
+    }
+
+    /**
+     * Escribe el trie en el buffer, desde su posicion actual:
+     * <pre>
+     * int nodos, char[nodos] caracteres, int[nodos] primer hijo, int[nodos] siguiente hermano,
+     * int largo, long[largo] bits de final de palabra
+     * </pre>
+     *
+     * @param out buffer con al menos {@link #serializedSize()} bytes libres
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putInt(size);
+        out.asCharBuffer().put(labels, 0, size);
+        out.position(out.position() + size * 2);
+        out.asIntBuffer().put(firstChild, 0, size);
+        out.position(out.position() + size * 4);
+        out.asIntBuffer().put(nextSibling, 0, size);
+        out.position(out.position() + size * 4);
+        long[] bits = terminal.toLongArray();
+        out.putInt(bits.length);
+        out.asLongBuffer().put(bits);
+        out.position(out.position() + bits.length * 8);
+    }
+
+    /**
+     * Lee un trie escrito con {@link #writeTo}, desde la posicion actual del buffer.
+     *
+     * @throws IllegalArgumentException si los datos no forman un trie valido
+     */
+    public static CompactTrie readFrom(ByteBuffer in) {
+        try {
+            int size = in.getInt();
+            if (size < 1 || size > in.remaining() / (2 + 4 + 4)) throw new IllegalArgumentException("Invalid node count: " + size);
+            char[] labels = new char[size];
+            int[] firstChild = new int[size];
+            int[] nextSibling = new int[size];
+            in.asCharBuffer().get(labels);
+            in.position(in.position() + size * 2);
+            in.asIntBuffer().get(firstChild);
+            in.position(in.position() + size * 4);
+            in.asIntBuffer().get(nextSibling);
+            in.position(in.position() + size * 4);
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining() / 8) throw new IllegalArgumentException("Invalid terminal bitmap: " + length);
+            long[] bits = new long[length];
+            in.asLongBuffer().get(bits);
+            in.position(in.position() + length * 8);
+
+            //un indice fuera de rango romperia las busquedas mas adelante
+            for (int i = 0; i < size; i++) {
+                if (firstChild[i] < NONE || firstChild[i] >= size || nextSibling[i] < NONE || nextSibling[i] >= size) {
+                    throw new IllegalArgumentException("Invalid link at node " + i);
+                }
+            }
+            return new CompactTrie(labels, firstChild, nextSibling, BitSet.valueOf(bits));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated trie");
+        }
+    }
+
+    /**
+     * @return todas las palabras que si las aplicamos a f, el resultado de f es 1.
+     */
+    public Set<String> filterBy(Function<String, Integer> f) {
+        Set<String> words = new HashSet<>();
+        forEachWord(Trie.filter(f, words));
+        return words;
+    }
+
+    /**
+     * Ver {@link Trie#filterBy(int, int, int, int, Function)}.
+     */
+    public Set<String> filterBy(int minLength, int maxLength, int signature, int maxSignatureDistance,
+                                Function<String, Integer> f) {
+        Set<String> words = new HashSet<>();
+        if (maxLength >= 0) forEachWord(maxLength, Trie.filter(minLength, signature, maxSignatureDistance, f, words));
+        return words;
+    }
+
+    /**
+     * Ver {@link Trie#forEachWord}.
+     */
+    public void forEachWord(CharSequenceConsumer consumer) {
+        visit(ROOT, new WordPath(16), 0, Integer.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Ver {@link Trie#forEachWord(int, CharSequenceConsumer)}.
+     */
+    public void forEachWord(int maxLength, CharSequenceConsumer consumer) {
+        visit(ROOT, new WordPath(16), 0, maxLength, consumer);
+    }
+
+    /**
+     * Ver {@link Trie#parallelFilterBy}: los shards son los nodos a profundidad {@link Trie#SHARD_DEPTH}.
+     * f tiene que ser thread-safe.
+     */
+    public Set<String> parallelFilterBy(Function<String, Integer> f) {
+        List<Integer> shards = new ArrayList<>();
+        List<char[]> prefixes = new ArrayList<>();
+        Set<String> shallow = new HashSet<>();
+        split(ROOT, new char[Trie.SHARD_DEPTH], 0, f, shards, prefixes, shallow);
+
+        Set<String> words = IntStream.range(0, shards.size()).parallel().collect(HashSet::new, (found, i) -> {
+            char[] prefix = prefixes.get(i);
+            visit(shards.get(i), new WordPath(prefix), prefix.length, Integer.MAX_VALUE, Trie.filter(f, found));
+        }, Set::addAll);
+        words.addAll(shallow);
+        return words;
+    }
+
+    private void split(int node, char[] path, int depth, Function<String, Integer> f,
+                       List<Integer> shards, List<char[]> prefixes, Set<String> shallow) {
+        if (depth == Trie.SHARD_DEPTH) {
+            shards.add(node);
+            prefixes.add(Arrays.copyOf(path, depth));
+            return;
+        }
+        if (terminal.get(node)) {
+            String word = new String(path, 0, depth);
+            if (f.apply(word) == 1) shallow.add(word);
+        }
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            path[depth] = labels[child];
+            split(child, path, depth + 1, f, shards, prefixes, shallow);
+        }
+    }
+
+    private void visit(int node, WordPath path, int depth, int maxDepth, CharSequenceConsumer consumer) {
+        if (terminal.get(node)) {
+            path.setLength(depth);
+            consumer.accept(path);
+        }
+        if (depth == maxDepth) return;
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            path.set(depth, labels[child]);
+            visit(child, path, depth + 1, maxDepth, consumer);
+        }
+    }
+
+    /**
+     * Busca todas las palabras a distancia de Levenshtein {@code maxDistance} o menos de {@code word},
+     * podando las ramas cuya fila de programacion dinamica ya supera la cota (ver {@link Trie#fuzzySearch}).
+     */
+    public Set<String> fuzzySearch(String word, int maxDistance) {
+        Set<String> words = new HashSet<>();
+        int n = word.length();
+        int maxDepth = n + maxDistance;
+        int[][] rows = new int[maxDepth + 1][n + 1];
+        for (int j = 0; j <= n; j++) rows[0][j] = j;
+
+        if (terminal.get(ROOT) && rows[0][n] <= maxDistance) words.add("");
+        fuzzySearchRecursive(ROOT, word, maxDistance, rows, new char[maxDepth], 0, words);
+        return words;
+    }
+
+    /**
+     * Ver {@link Trie#parallelFuzzySearch}: cada rama de la raiz es un shard con sus propias filas.
+     */
+    public Set<String> parallelFuzzySearch(String word, int maxDistance) {
+        int n = word.length();
+        int maxDepth = n + maxDistance;
+        List<Integer> branches = new ArrayList<>();
+        for (int child = firstChild[ROOT]; child != NONE; child = nextSibling[child]) branches.add(child);
+
+        Set<String> words = branches.parallelStream().collect(HashSet::new, (found, child) -> {
+            int[][] rows = new int[maxDepth + 1][n + 1];
+            for (int j = 0; j <= n; j++) rows[0][j] = j;
+            fuzzySearchChild(child, word, maxDistance, rows, new char[maxDepth], 0, found);
+        }, Set::addAll);
+        if (terminal.get(ROOT) && n <= maxDistance) words.add("");
+        return words;
+    }
+
+    private void fuzzySearchRecursive(int node, String word, int maxDistance, int[][] rows, char[] path, int depth, Set<String> words) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            fuzzySearchChild(child, word, maxDistance, rows, path, depth, words);
+        }
+    }
+
+    private void fuzzySearchChild(int child, String word, int maxDistance, int[][] rows, char[] path, int depth, Set<String> words) {
+        if (depth == path.length) return;
+        int n = word.length();
+        int[] prev = rows[depth];
+        int[] row = rows[depth + 1];
+        char c = labels[child];
+        row[0] = prev[0] + 1;
+        int rowMin = row[0];
+        for (int j = 1; j <= n; j++) {
+            int v = prev[j - 1] + (word.charAt(j - 1) == c ? 0 : 1);
+            if (prev[j] + 1 < v) v = prev[j] + 1;
+            if (row[j - 1] + 1 < v) v = row[j - 1] + 1;
+            row[j] = v;
+            if (v < rowMin) rowMin = v;
+        }
+        if (rowMin > maxDistance) return;
+
+        path[depth] = c;
+        if (terminal.get(child) && row[n] <= maxDistance) {
+            words.add(new String(path, 0, depth + 1));
+        }
+        fuzzySearchRecursive(child, word, maxDistance, rows, path, depth + 1, words);
+    }
+
+    public void printTrie() {
+        forEachWord(word -> System.out.println("Word: [" + word + "]"));
+    }
+
+    /**
+     * @return el nodo al que se llega siguiendo key, o NONE si key no es prefijo de ninguna palabra
+     */
+    private int findNode(CharSequence key, WordNormalizer normalizer) {
+        int current = ROOT;
+        for (int i = 0; i < key.length() && current != NONE; i++) {
+            current = child(current, normalizer.fold(key.charAt(i)));
+        }
+        return current;
+    }
+
+    private int findNode(CharSequence key) {
+        int current = ROOT;
+        for (int i = 0; i < key.length() && current != NONE; i++) {
+            current = child(current, key.charAt(i));
+        }
+        return current;
+    }
+
+    /**
+     * @return el hijo de node con el caracter c, o NONE
+     */
+    private int child(int node, char c) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            char label = labels[child];
+            if (label == c) return child;
+            if (label > c) return NONE; //hermanos ordenados: ya no puede aparecer
+        }
+        return NONE;
+    }
+
+    /**
+     * @return el hijo de node con el caracter c, creandolo en su lugar ordenado si no existe
+     */
+    private int childOrInsert(int node, char c) {
+        int previous = NONE;
+        int child = firstChild[node];
+        while (child != NONE && labels[child] < c) {
+            previous = child;
+            child = nextSibling[child];
+        }
+        if (child != NONE && labels[child] == c) return child;
+
+        int created = newNode(c);
+        nextSibling[created] = child;
+        if (previous == NONE) firstChild[node] = created;
+        else nextSibling[previous] = created;
+        return created;
+    }
+
+    private int newNode(char label) {
+        if (size == labels.length) {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        int node = size++;
+        labels[node] = label;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        return node;
+    }
+}
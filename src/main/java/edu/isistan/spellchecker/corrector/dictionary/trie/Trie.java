@@ -1,17 +1,31 @@
 package edu.isistan.spellchecker.corrector.dictionary.trie;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import edu.isistan.spellchecker.corrector.dictionary.index.LengthIndex;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
 
 /**
  * Implementacion de un Trie (arbol de reTRIEval o recuperacion)
  * Decision: Un simbolo por nodo.
+ * <p>
+ * Las busquedas exhaustivas tienen una version paralela ({@link #parallelFilterBy}, {@link #parallelFuzzySearch})
+ * que reparte las ramas del trie entre los threads del pool de fork/join.
  */
 public class Trie {
+    /**
+     * Profundidad a la que se corta el trie en shards para el filterBy paralelo: con dos letras hay
+     * cientos de ramas, suficientes para repartir bien aunque algunas iniciales sean mucho mas comunes.
+     */
+    static final int SHARD_DEPTH = 2;
+
     private final TrieNode root;
 
     private int count;
@@ -42,122 +56,340 @@ public class Trie {
         }
     }
 
+    /**
+     * Agrega las palabras de otro trie reusando sus nodos: las ramas que este trie no tiene se enganchan
+     * tal cual y solo se recorren las que comparten prefijo. Sirve para juntar tries armados en paralelo
+     * (ver DictionaryLoader): si los tries no comparten iniciales, cuesta un put por rama de la raiz.
+     * <p>
+     * Despues de llamarlo, {@code other} no se debe modificar ni volver a usar.
+     *
+     * @param other trie cuyas palabras se agregan
+     */
+    public void merge(Trie other) {
+        int repeated = mergeNodes(root, other.root);
+        count += other.count - repeated;
+    }
+
+    /**
+     * @return cantidad de palabras de from que ya estaban en into
+     */
+    private static int mergeNodes(TrieNode into, TrieNode from) {
+        int repeated = 0;
+        if (from.isWord()) {
+            if (into.isWord()) repeated++;
+            else into.setEndOfWord(true);
+        }
+        for (Map.Entry<Character, TrieNode> entry: from.getChildren().entrySet()) {
+            TrieNode existing = into.getChildren().putIfAbsent(entry.getKey(), entry.getValue());
+            if (existing != null) repeated += mergeNodes(existing, entry.getValue());
+        }
+        return repeated;
+    }
+
     /**
      *
      * @param word to search
      * @return true if the word exists in the trie
      */
     public boolean search(String word) {
-        char text[] = word.toCharArray();
-        int length = text.length;
-
-        AtomicReference<TrieNode> temp = new AtomicReference<>(root);
+        TrieNode node = findNode(word);
+        return node != null && node.isWord();
+    }
 
-        //DFS para la palabra
-        for (int i = 0; i < length; i++) {
-            char c = text[i];
-            Optional<Map.Entry<Character, TrieNode>> opt = temp.get().getChildren().entrySet().stream().filter(entry -> {
-                char ca = entry.getKey();
-                return ca == c; //basicamente, buscamos el hijo de temp que tenga el character i
-            }).findFirst();
+    /**
+     * @param prefix prefijo a buscar
+     * @return true si alguna palabra del trie empieza con prefix
+     */
+    public boolean startsWith(String prefix) {
+        return findNode(prefix) != null;
+    }
 
-            opt.ifPresent(entry -> { //if this char matched, get the following node
-                TrieNode node = entry.getValue();
-                temp.set(node); //update the temp for the following iteration
-            });
-            if (!opt.isPresent()) {
-                return false;
-            }
+    /**
+     * Busca la palabra mas larga del trie que es prefijo de {@code text} a partir de {@code from}.
+     * No crea objetos, por lo que sirve para partir palabras compuestas sin copiar el texto.
+     *
+     * @param text texto a recorrer
+     * @param from posicion desde donde empieza la palabra
+     * @return el largo de la palabra encontrada, o -1 si ninguna palabra es prefijo
+     */
+    public int longestPrefixLength(CharSequence text, int from) {
+        TrieNode current = root;
+        int longest = current.isWord() ? 0 : -1;
+        for (int i = from; i < text.length(); i++) {
+            current = current.getChildren().get(text.charAt(i));
+            if (current == null) break;
+            if (current.isWord()) longest = i - from + 1;
         }
-        return temp.get().isWord();
+        return longest;
     }
 
-    public boolean isEmpty() {
-        return (root == null); //?
+    /**
+     * @param text texto a recorrer
+     * @return la palabra mas larga del trie que es prefijo de text, o null si no hay ninguna
+     */
+    public String longestPrefix(String text) {
+        int length = longestPrefixLength(text, 0);
+        return length < 0 ? null : text.substring(0, length);
     }
 
-    public void printTrie() {
-        if (root == null) {
-            System.out.println("Trie is empty");
-            return;
+    /**
+     * Igual que {@link #search(String)} para una palabra sin normalizar: normaliza cada caracter mientras
+     * baja por el trie, sin copiar la palabra.
+     *
+     * @param word palabra a buscar
+     * @param normalizer normalizador con el que se cargaron las palabras
+     */
+    public boolean search(CharSequence word, WordNormalizer normalizer) {
+        TrieNode node = findNode(normalizer.forLookup(word), normalizer);
+        return node != null && node.isWord();
+    }
+
+    /**
+     * Igual que {@link #startsWith(String)} para un prefijo sin normalizar.
+     */
+    public boolean startsWith(CharSequence prefix, WordNormalizer normalizer) {
+        return findNode(normalizer.forLookup(prefix), normalizer) != null;
+    }
+
+    /**
+     * Igual que {@link #longestPrefixLength(CharSequence, int)} para un texto sin normalizar: pasa cada
+     * caracter por {@link WordNormalizer#fold(char)} mientras baja por el trie. El largo es en caracteres
+     * de text. Un acento combinado corta la busqueda, porque no se puede normalizar caracter por caracter.
+     */
+    public int longestPrefixLength(CharSequence text, int from, WordNormalizer normalizer) {
+        TrieNode current = root;
+        int longest = current.isWord() ? 0 : -1;
+        for (int i = from; i < text.length(); i++) {
+            current = current.getChildren().get(normalizer.fold(text.charAt(i)));
+            if (current == null) break;
+            if (current.isWord()) longest = i - from + 1;
         }
-        printTrieRecursive(root, null, 0);
+        return longest;
     }
 
-    private int printTrieRecursive(TrieNode current, char[] prefix, int length) {
-        char newPrefix[] = new char[length+2];
-        if (prefix != null) {
-            System.arraycopy(prefix, 0, newPrefix, 0, length);
-        } else {
-            for (int i = 0; i < length+2; i++) {
-                newPrefix[i] = ' ';
-            }
+    private TrieNode findNode(CharSequence key, WordNormalizer normalizer) {
+        TrieNode current = root;
+        for (int i = 0; i < key.length() && current != null; i++) {
+            current = current.getChildren().get(normalizer.fold(key.charAt(i)));
         }
-        newPrefix[length+1] = 0;
+        return current;
+    }
 
-        if (current.isWord()) {
-            //TODO for printing (and probably should consider in search), consider from 0 to prefix.length-1.
-            System.out.println("Word: [" + String.valueOf(prefix).substring(0, prefix.length-1) +"]");
+    /**
+     * Baja por el trie siguiendo los caracteres de key: un get por caracter, O(largo).
+     * @return el nodo al que se llega, o null si key no es prefijo de ninguna palabra
+     */
+    private TrieNode findNode(CharSequence key) {
+        TrieNode current = root;
+        for (int i = 0; i < key.length() && current != null; i++) {
+            current = current.getChildren().get(key.charAt(i));
         }
+        return current;
+    }
+
+    public boolean isEmpty() {
+        return (root == null); //?
+    }
 
-        Set<Map.Entry<Character, TrieNode>> entries = current.getChildren().entrySet();
+    public void printTrie() {
+        forEachWord(word -> System.out.println("Word: [" + word + "]"));
+    }
+
+    /**
+     * Recorre todas las palabras del trie en profundidad. El camino se arma sobre un unico char[] compartido,
+     * sin sets intermedios ni copias por nodo: la palabra que recibe el consumer es una vista sobre ese buffer
+     * (ver {@link CharSequenceConsumer}).
+     *
+     * @param consumer recibe cada palabra
+     */
+    public void forEachWord(CharSequenceConsumer consumer) {
+        visit(root, new WordPath(16), 0, Integer.MAX_VALUE, consumer);
+    }
 
-        for (Map.Entry<Character, TrieNode> entry: entries) {
-            if (entry != null) {
-                Character c = entry.getKey();
-                TrieNode node = entry.getValue();
+    /**
+     * Igual que {@link #forEachWord(CharSequenceConsumer)}, pero no baja por el trie mas alla de maxLength:
+     * las palabras mas largas no se visitan.
+     */
+    public void forEachWord(int maxLength, CharSequenceConsumer consumer) {
+        visit(root, new WordPath(16), 0, maxLength, consumer);
+    }
 
-                newPrefix[length] = c;
-                printTrieRecursive(node, newPrefix, length+1);
-            }
+    /**
+     * Recorre el subarbol de node; path tiene el prefijo de node en sus primeras depth posiciones.
+     */
+    private void visit(TrieNode node, WordPath path, int depth, int maxDepth, CharSequenceConsumer consumer) {
+        if (node.isWord()) {
+            path.setLength(depth);
+            consumer.accept(path);
+        }
+        if (depth == maxDepth) return;
+        for (Map.Entry<Character, TrieNode> entry: node.getChildren().entrySet()) {
+            path.set(depth, entry.getKey());
+            visit(entry.getValue(), path, depth + 1, maxDepth, consumer);
         }
-        return 0;
     }
 
     public int getNumWords() {
         return count;
     }
 
+    /**
+     * Busca todas las palabras a distancia de Levenshtein {@code maxDistance} o menos de {@code word}.
+     * <p>
+     * Recorre el trie llevando la fila de la matriz de programacion dinamica del prefijo actual:
+     * cada hijo calcula su fila a partir de la del padre, y si el minimo de la fila ya supera la cota
+     * ningun descendiente puede estar a distancia valida, asi que no se baja por esa rama.
+     *
+     * @param word palabra a buscar
+     * @param maxDistance distancia maxima
+     * @return las palabras del trie a distancia menor o igual a maxDistance
+     */
+    public Set<String> fuzzySearch(String word, int maxDistance) {
+        Set<String> words = new HashSet<>();
+        int n = word.length();
+        //una fila por profundidad, se reutilizan entre ramas
+        int maxDepth = n + maxDistance;
+        int[][] rows = new int[maxDepth + 1][n + 1];
+        for (int j = 0; j <= n; j++) rows[0][j] = j;
+        char[] path = new char[maxDepth];
+
+        if (root.isWord() && rows[0][n] <= maxDistance) words.add("");
+        fuzzySearchRecursive(root, word, maxDistance, rows, path, 0, words);
+        return words;
+    }
+
+    /**
+     * Igual que {@link #fuzzySearch}, pero cada rama de la raiz es un shard que se recorre en paralelo
+     * con sus propias filas. Cada shard junta sus palabras en su propio set y los sets se unen al final.
+     */
+    public Set<String> parallelFuzzySearch(String word, int maxDistance) {
+        int n = word.length();
+        int maxDepth = n + maxDistance;
+        Set<String> words = new ArrayList<>(root.getChildren().entrySet()).parallelStream().collect(HashSet::new, (found, entry) -> {
+            int[][] rows = new int[maxDepth + 1][n + 1];
+            for (int j = 0; j <= n; j++) rows[0][j] = j;
+            fuzzySearchChild(entry.getKey(), entry.getValue(), word, maxDistance, rows, new char[maxDepth], 0, found);
+        }, Set::addAll);
+        if (root.isWord() && n <= maxDistance) words.add("");
+        return words;
+    }
+
+    private void fuzzySearchRecursive(TrieNode node, String word, int maxDistance, int[][] rows, char[] path, int depth, Set<String> words) {
+        for (Map.Entry<Character, TrieNode> entry: node.getChildren().entrySet()) {
+            fuzzySearchChild(entry.getKey(), entry.getValue(), word, maxDistance, rows, path, depth, words);
+        }
+    }
+
+    /**
+     * Calcula la fila del hijo a partir de la del padre (rows[depth]) y sigue por el hijo si no se poda.
+     */
+    private void fuzzySearchChild(char c, TrieNode child, String word, int maxDistance, int[][] rows, char[] path, int depth, Set<String> words) {
+        if (depth == path.length) return; //mas profundo que n + maxDistance nunca puede estar en rango
+        int n = word.length();
+        int[] prev = rows[depth];
+        int[] row = rows[depth + 1];
+        row[0] = prev[0] + 1;
+        int rowMin = row[0];
+        for (int j = 1; j <= n; j++) {
+            int v = prev[j - 1] + (word.charAt(j - 1) == c ? 0 : 1);
+            if (prev[j] + 1 < v) v = prev[j] + 1;
+            if (row[j - 1] + 1 < v) v = row[j - 1] + 1;
+            row[j] = v;
+            if (v < rowMin) rowMin = v;
+        }
+        if (rowMin > maxDistance) return; //poda: ningun descendiente puede quedar en rango
+
+        path[depth] = c;
+        if (child.isWord() && row[n] <= maxDistance) {
+            words.add(new String(path, 0, depth + 1));
+        }
+        fuzzySearchRecursive(child, word, maxDistance, rows, path, depth + 1, words);
+    }
+
     /**
      * Necesito dar soporte al filterBy en el trie. Si no lo hago, no me sirve tenerlo, porque tendria que devolver un Set
      * con todas las palabras, y eso arruina el proposito del trie, que justamente es guardar data de manera eficiente.
      * @return todas las palabras que si las aplicamos a f, el resultado de f es 1.
      */
     public Set<String> filterBy(Function<String, Integer> f) {
-        //DFS aplicando filterBy f==1
         Set<String> words = new HashSet<>();
-        return filterByRecursive(words, f, root, null, 0);
+        forEachWord(filter(f, words));
+        return words;
     }
 
-    private Set<String> filterByRecursive(Set<String> words, Function<String, Integer> f, TrieNode currentNode, char[] currentWord, int length) {
-        char newPrefix[] = new char[length+2];
-        if (currentWord != null) {
-            System.arraycopy(currentWord, 0, newPrefix, 0, length);
-        } else {
-            for (int i = 0; i < length+2; i++) {
-                newPrefix[i] = ' ';
-            }
-        }
-        newPrefix[length+1] = 0;
+    /**
+     * Igual que {@link #filterBy(Function)}, pero solo baja hasta maxLength y descarta por largo y por firma
+     * (ver {@link LengthIndex}) sobre el camino, antes de crear el String y llamar a f.
+     */
+    public Set<String> filterBy(int minLength, int maxLength, int signature, int maxSignatureDistance,
+                                Function<String, Integer> f) {
+        Set<String> words = new HashSet<>();
+        if (maxLength >= 0) forEachWord(maxLength, filter(minLength, signature, maxSignatureDistance, f, words));
+        return words;
+    }
 
-        if (currentNode.isWord()) {
-            //TODO for printing (and probably should consider in search), consider from 0 to prefix.length-1.
-            String word = String.valueOf(currentWord).substring(0, currentWord.length-1);
-            if (f.apply(word) == 1)
-                words.add(word);
-        }
+    /**
+     * @return un consumer que agrega a words las palabras para las que f da 1
+     */
+    static CharSequenceConsumer filter(Function<String, Integer> f, Set<String> words) {
+        return path -> {
+            String word = path.toString();
+            if (f.apply(word) == 1) words.add(word);
+        };
+    }
 
-        Set<Map.Entry<Character, TrieNode>> entries = currentNode.getChildren().entrySet();
+    /**
+     * @return un consumer que agrega a words las palabras de al menos minLength, con la firma a maxSignatureDistance
+     * o menos de signature, para las que f da 1
+     */
+    static CharSequenceConsumer filter(int minLength, int signature, int maxSignatureDistance,
+                                       Function<String, Integer> f, Set<String> words) {
+        CharSequenceConsumer filter = filter(f, words);
+        return path -> {
+            if (path.length() < minLength) return;
+            if (LengthIndex.signatureDistance(signature, LengthIndex.signature(path)) > maxSignatureDistance) return;
+            filter.accept(path);
+        };
+    }
 
-        for (Map.Entry<Character, TrieNode> entry: entries) {
-            if (entry != null) {
-                Character c = entry.getKey();
-                TrieNode node = entry.getValue();
+    /**
+     * Igual que {@link #filterBy}, pero corta el trie en shards a profundidad {@link #SHARD_DEPTH} y los
+     * recorre en paralelo en el pool de fork/join. Cada shard junta sus palabras en su propio set, asi que
+     * los threads no compiten por el resultado.
+     * <p>
+     * f se llama desde varios threads a la vez: tiene que ser thread-safe.
+     */
+    public Set<String> parallelFilterBy(Function<String, Integer> f) {
+        List<TrieNode> shards = new ArrayList<>();
+        List<char[]> prefixes = new ArrayList<>();
+        Set<String> shallow = new HashSet<>();
+        split(root, new char[SHARD_DEPTH], 0, f, shards, prefixes, shallow);
 
-                newPrefix[length] = c;
-                words.addAll(filterByRecursive(words, f, node, newPrefix, length+1));
-            }
-        }
+        Set<String> words = IntStream.range(0, shards.size()).parallel().collect(HashSet::new, (found, i) -> {
+            char[] prefix = prefixes.get(i);
+            visit(shards.get(i), new WordPath(prefix), prefix.length, Integer.MAX_VALUE, filter(f, found));
+        }, Set::addAll);
+        words.addAll(shallow);
         return words;
     }
+
+    /**
+     * Baja hasta SHARD_DEPTH: las palabras mas cortas se filtran aca y cada nodo a esa profundidad es un shard.
+     */
+    private void split(TrieNode node, char[] path, int depth, Function<String, Integer> f,
+                       List<TrieNode> shards, List<char[]> prefixes, Set<String> shallow) {
+        if (depth == SHARD_DEPTH) {
+            shards.add(node);
+            prefixes.add(Arrays.copyOf(path, depth));
+            return;
+        }
+        if (node.isWord()) {
+            String word = new String(path, 0, depth);
+            if (f.apply(word) == 1) shallow.add(word);
+        }
+        for (Map.Entry<Character, TrieNode> entry: node.getChildren().entrySet()) {
+            path[depth] = entry.getKey();
+            split(entry.getValue(), path, depth + 1, f, shards, prefixes, shallow);
+        }
+    }
 }
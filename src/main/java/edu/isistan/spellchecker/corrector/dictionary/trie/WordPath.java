@@ -0,0 +1,57 @@
+package edu.isistan.spellchecker.corrector.dictionary.trie;
+
+import java.util.Arrays;
+
+/**
+ * Camino de la raiz al nodo actual durante un recorrido: un unico char[] que se reutiliza para todas
+ * las palabras y se entrega a los {@link CharSequenceConsumer} sin copiarlo.
+ */
+final class WordPath implements CharSequence {
+    private char[] chars;
+    private int length;
+
+    WordPath(int capacity) {
+        this.chars = new char[Math.max(1, capacity)];
+    }
+
+    WordPath(char[] prefix) {
+        this(prefix.length + 16);
+        System.arraycopy(prefix, 0, chars, 0, prefix.length);
+        this.length = prefix.length;
+    }
+
+    /**
+     * Pone el caracter en la posicion depth y corta el camino ahi.
+     */
+    void set(int depth, char c) {
+        if (depth == chars.length) chars = Arrays.copyOf(chars, depth * 2);
+        chars[depth] = c;
+        length = depth + 1;
+    }
+
+    void setLength(int length) {
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length) throw new IndexOutOfBoundsException(String.valueOf(index));
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (end > length) throw new IndexOutOfBoundsException(String.valueOf(end));
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,286 @@
+package edu.isistan.spellchecker.corrector.impl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.isistan.spellchecker.corrector.Corrector;
+
+/**
+ * Decorador que cachea las correcciones de cualquier Corrector.
+ * <p>
+ * En documentos reales las mismas palabras mal escritas se repiten miles de veces, y calcular
+ * sus correcciones de nuevo cada vez es lo mas caro del chequeo.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> El cache se divide en segmentos (lock striping): cada palabra cae en un segmento segun su hash
+ * y solo se bloquea ese segmento, asi varios threads pueden usar el cache a la vez.
+ * <li> Cada segmento es un LinkedHashMap en orden de acceso, con capacidad fija.
+ * <li> Con {@link Eviction#LRU} siempre entra la palabra nueva y sale la usada hace mas tiempo.
+ * Con {@link Eviction#TINY_LFU} la palabra nueva solo entra si se pidio mas veces que la que
+ * saldria (frecuencias estimadas con un count-min sketch que envejece): asi una rafaga de palabras
+ * que aparecen una sola vez no desplaza a los errores frecuentes.
+ * <li> Las correcciones se calculan fuera del lock. Dos threads pueden calcular la misma palabra a la vez,
+ * pero el resultado es el mismo.
+ * <li> Los sets y listas cacheados son inmodificables.
+ * <li> getTopCorrections se cachea en la misma entrada que getCorrections: se guarda la lista del k mas grande
+ * pedido, y un k menor se responde con un prefijo de esa lista.
+ * </ul>
+ */
+public class CachingCorrector extends Corrector {
+	/**
+	 * Politica de desalojo del cache.
+	 */
+	public enum Eviction {
+		LRU, TINY_LFU
+	}
+
+	private static final int DEFAULT_SEGMENTS = 16;
+
+	private final Corrector delegate;
+	private final Eviction eviction;
+	private final Segment[] segments;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+
+	/**
+	 * @param delegate corrector a cachear
+	 * @param maxSize cantidad maxima de palabras cacheadas
+	 * @param eviction politica de desalojo
+	 * @throws IllegalArgumentException si delegate o eviction son null, o maxSize es menor a 1
+	 */
+	public CachingCorrector(Corrector delegate, int maxSize, Eviction eviction) {
+		if (delegate == null) throw new IllegalArgumentException("Delegate corrector is null");
+		if (eviction == null) throw new IllegalArgumentException("Eviction is null");
+		if (maxSize < 1) throw new IllegalArgumentException("maxSize must be at least 1");
+		this.delegate = delegate;
+		this.eviction = eviction;
+		//con caches chicos menos segmentos, para que cada uno tenga lugar
+		int numSegments = Math.min(DEFAULT_SEGMENTS, Integer.highestOneBit(maxSize));
+		this.segments = new Segment[numSegments];
+		for (int i = 0; i < numSegments; i++) {
+			int capacity = maxSize / numSegments + (i < maxSize % numSegments ? 1 : 0);
+			segments[i] = new Segment(capacity, eviction == Eviction.TINY_LFU);
+		}
+	}
+
+	/**
+	 * Ver superclase. Las palabras null no se cachean: se delegan para mantener el comportamiento del delegado.
+	 */
+	@Override
+	public Set<String> getCorrections(String wrong) {
+		if (wrong == null) return delegate.getCorrections(null);
+		Segment segment = segmentFor(wrong);
+
+		Entry cached = segment.get(wrong);
+		if (cached != null && cached.corrections != null) {
+			hits.increment();
+			return cached.corrections;
+		}
+		misses.increment();
+		Set<String> corrections = Collections.unmodifiableSet(delegate.getCorrections(wrong));
+		segment.put(wrong, corrections, null, 0);
+		return corrections;
+	}
+
+	/**
+	 * Ver superclase.
+	 */
+	@Override
+	public List<String> getTopCorrections(String wrong, int k) {
+		if (wrong == null || k < 1) return delegate.getTopCorrections(wrong, k);
+		Segment segment = segmentFor(wrong);
+
+		Entry cached = segment.get(wrong);
+		if (cached != null && cached.top != null && cached.topK >= k) {
+			hits.increment();
+			return cached.top.size() <= k ? cached.top : cached.top.subList(0, k);
+		}
+		misses.increment();
+		List<String> top = Collections.unmodifiableList(delegate.getTopCorrections(wrong, k));
+		segment.put(wrong, null, top, k);
+		return top;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return palabras que salieron del cache para hacerle lugar a otras
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return palabras que no se admitieron por ser menos frecuentes que la que hubieran desalojado (solo TINY_LFU)
+	 */
+	public long getRejections() {
+		return rejections.sum();
+	}
+
+	public double getHitRate() {
+		long h = getHits();
+		long total = h + getMisses();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	/**
+	 * @return cantidad de palabras cacheadas
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment: segments) size += segment.size();
+		return size;
+	}
+
+	public Corrector getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public String toString() {
+		return "CachingCorrector(" + eviction + ", " + size() + " words, hits " + getHits() + ", misses " + getMisses()
+				+ ", evictions " + getEvictions() + ", rejections " + getRejections() + ")";
+	}
+
+	private Segment segmentFor(String word) {
+		int h = word.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (segments.length - 1)];
+	}
+
+	/**
+	 * Un segmento del cache. Todo acceso es bajo su propio lock.
+	 */
+	private final class Segment {
+		private final int capacity;
+		private final LinkedHashMap<String, Entry> map;
+		private final FrequencySketch sketch;
+
+		Segment(int capacity, boolean frequencyAware) {
+			this.capacity = capacity;
+			this.map = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+			this.sketch = frequencyAware ? new FrequencySketch(capacity) : null;
+		}
+
+		synchronized Entry get(String word) {
+			if (sketch != null) sketch.increment(word);
+			return map.get(word);
+		}
+
+		/**
+		 * Guarda lo calculado para la palabra, conservando lo que ya tenia su entrada.
+		 */
+		synchronized void put(String word, Set<String> corrections, List<String> top, int topK) {
+			Entry current = map.get(word);
+			if (current != null) {
+				map.put(word, current.merge(corrections, top, topK));
+				return;
+			}
+			Entry entry = new Entry(corrections, top, topK);
+			if (map.size() < capacity) {
+				map.put(word, entry);
+				return;
+			}
+			Iterator<Map.Entry<String, Entry>> eldest = map.entrySet().iterator();
+			String victim = eldest.next().getKey();
+			if (sketch != null && sketch.frequency(word) <= sketch.frequency(victim)) {
+				rejections.increment();
+				return;
+			}
+			eldest.remove();
+			evictions.increment();
+			map.put(word, entry);
+		}
+
+		synchronized int size() {
+			return map.size();
+		}
+	}
+
+	/**
+	 * Lo cacheado para una palabra. Es inmutable: al agregar algo se reemplaza la entrada.
+	 */
+	private static final class Entry {
+		private final Set<String> corrections;
+		private final List<String> top;
+		private final int topK;
+
+		Entry(Set<String> corrections, List<String> top, int topK) {
+			this.corrections = corrections;
+			this.top = top;
+			this.topK = topK;
+		}
+
+		Entry merge(Set<String> corrections, List<String> top, int topK) {
+			boolean newTop = top != null && topK > this.topK;
+			return new Entry(corrections != null ? corrections : this.corrections,
+					newTop ? top : this.top, newTop ? topK : this.topK);
+		}
+	}
+
+	/**
+	 * Count-min sketch de 4 filas para estimar cuantas veces se pidio cada palabra.
+	 * Cuando se cuentan 10 veces la capacidad del segmento, todos los contadores se dividen por dos,
+	 * para que la frecuencia refleje lo reciente.
+	 */
+	private static final class FrequencySketch {
+		private static final int DEPTH = 4;
+		private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+		private final int[][] counters;
+		private final int mask;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(int capacity) {
+			int width = Integer.highestOneBit(Math.max(16, capacity * 2 - 1));
+			this.counters = new int[DEPTH][width];
+			this.mask = width - 1;
+			this.sampleSize = Math.max(10, capacity * 10);
+		}
+
+		void increment(String word) {
+			int h = word.hashCode();
+			for (int i = 0; i < DEPTH; i++) {
+				counters[i][index(h, i)]++;
+			}
+			if (++additions >= sampleSize) reset();
+		}
+
+		int frequency(String word) {
+			int h = word.hashCode();
+			int min = Integer.MAX_VALUE;
+			for (int i = 0; i < DEPTH; i++) {
+				min = Math.min(min, counters[i][index(h, i)]);
+			}
+			return min;
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		private void reset() {
+			for (int[] row: counters) {
+				for (int j = 0; j < row.length; j++) row[j] >>>= 1;
+			}
+			additions /= 2;
+		}
+	}
+}
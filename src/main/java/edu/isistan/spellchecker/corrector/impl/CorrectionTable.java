@@ -0,0 +1,274 @@
+package edu.isistan.spellchecker.corrector.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tabla compacta de correcciones del {@link FileCorrector}: palabra mal escrita -> correcciones.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Todos los strings (palabras mal escritas y correcciones) se guardan una sola vez en un unico
+ * char[] compartido. Un string es un id: su posicion y largo en ese arreglo.
+ * <li> Los ids se buscan con un hash de direccionamiento abierto sobre un int[]: no hay un objeto
+ * String, ni entrada de HashMap, ni HashSet por palabra.
+ * <li> Las correcciones de cada palabra son un rango de ids en un int[] (el largo y despues los ids).
+ * Las listas iguales se guardan una sola vez: muchas palabras mal escritas comparten la misma correccion.
+ * <li> Mientras se carga, las correcciones de cada palabra son una lista enlazada en arreglos de ints;
+ * {@link #freeze()} las pasa a rangos y libera lo que ya no se usa. Despues de freeze la tabla es de
+ * solo lectura y se puede consultar desde varios threads.
+ * <li> La busqueda pasa a minusculas caracter por caracter ({@link Character#toLowerCase(char)}), igual
+ * que la carga, sin crear strings.
+ * </ul>
+ */
+final class CorrectionTable {
+    private static final int NONE = -1;
+
+    private char[] arena = new char[1024];
+    private int arenaSize;
+
+    private int[] offsets = new int[256];
+    private int[] lengths = new int[256];
+    private int strings;
+
+    private int[] slots; //ids de strings por hash, NONE si esta libre
+    private int mask;
+
+    /*
+     * Por id de string, NONE si no es una palabra mal escrita. Mientras se carga es el primer par de su
+     * lista enlazada, despues de freeze() la posicion de su lista en lists.
+     */
+    private int[] corrections = new int[256];
+    private int keys;
+
+    private int[] pairValue = new int[256];
+    private int[] pairNext = new int[256];
+    private int pairs;
+
+    private int[] lists;
+    private boolean frozen;
+
+    CorrectionTable() {
+        this.slots = new int[512];
+        this.mask = slots.length - 1;
+        Arrays.fill(slots, NONE);
+        Arrays.fill(corrections, NONE);
+    }
+
+    /**
+     * Agrega una correccion. Los caracteres ya tienen que estar normalizados (en minusculas).
+     *
+     * @param buffer caracteres de la linea
+     * @param wrongStart inicio de la palabra mal escrita
+     * @param wrongLength largo de la palabra mal escrita
+     * @param correctionStart inicio de la correccion
+     * @param correctionLength largo de la correccion
+     */
+    void add(char[] buffer, int wrongStart, int wrongLength, int correctionStart, int correctionLength) {
+        if (frozen) throw new IllegalStateException("Table is frozen");
+        int wrong = intern(buffer, wrongStart, wrongLength);
+        int correction = intern(buffer, correctionStart, correctionLength);
+        if (pairs == pairValue.length) {
+            pairValue = Arrays.copyOf(pairValue, pairs * 2);
+            pairNext = Arrays.copyOf(pairNext, pairs * 2);
+        }
+        if (corrections[wrong] == NONE) keys++;
+        pairValue[pairs] = correction;
+        pairNext[pairs] = corrections[wrong];
+        corrections[wrong] = pairs++;
+    }
+
+    /**
+     * Pasa las listas enlazadas a rangos, compartiendo las listas iguales, y achica los arreglos.
+     */
+    void freeze() {
+        if (frozen) return;
+        int[] packed = new int[Math.max(16, keys * 2)];
+        int packedSize = 0;
+        int[] listSlots = new int[Integer.highestOneBit(Math.max(1, keys) * 2) * 2];
+        Arrays.fill(listSlots, NONE);
+        int listMask = listSlots.length - 1;
+        int[] tmp = new int[16];
+
+        for (int id = 0; id < strings; id++) {
+            if (corrections[id] == NONE) continue;
+            int n = 0;
+            for (int p = corrections[id]; p != NONE; p = pairNext[p]) {
+                if (n == tmp.length) tmp = Arrays.copyOf(tmp, n * 2);
+                tmp[n++] = pairValue[p];
+            }
+            //orden canonico y sin repetidos, para poder compartir la lista
+            Arrays.sort(tmp, 0, n);
+            int unique = 0;
+            for (int i = 0; i < n; i++) {
+                if (unique == 0 || tmp[i] != tmp[unique - 1]) tmp[unique++] = tmp[i];
+            }
+
+            int slot = mix(hashIds(tmp, unique)) & listMask;
+            int list;
+            while ((list = listSlots[slot]) != NONE && !sameList(packed, list, tmp, unique)) {
+                slot = (slot + 1) & listMask;
+            }
+            if (list == NONE) {
+                if (packedSize + unique + 1 > packed.length) {
+                    packed = Arrays.copyOf(packed, Math.max(packed.length * 2, packedSize + unique + 1));
+                }
+                list = packedSize;
+                packed[packedSize++] = unique;
+                System.arraycopy(tmp, 0, packed, packedSize, unique);
+                packedSize += unique;
+                listSlots[slot] = list;
+            }
+            corrections[id] = list;
+        }
+
+        lists = Arrays.copyOf(packed, packedSize);
+        arena = Arrays.copyOf(arena, arenaSize);
+        offsets = Arrays.copyOf(offsets, strings);
+        lengths = Arrays.copyOf(lengths, strings);
+        corrections = Arrays.copyOf(corrections, strings);
+        pairValue = null;
+        pairNext = null;
+        frozen = true;
+    }
+
+    /**
+     * @param word palabra, en cualquier combinacion de mayusculas y minusculas
+     * @return las correcciones en minusculas, o un set vacio si la palabra no tiene
+     */
+    Set<String> get(CharSequence word) {
+        if (!frozen) throw new IllegalStateException("Table is not frozen");
+        int id = find(word);
+        if (id == NONE || corrections[id] == NONE) return Collections.emptySet();
+        int list = corrections[id];
+        int n = lists[list];
+        Set<String> result = new HashSet<>(n * 2);
+        for (int i = 1; i <= n; i++) {
+            int c = lists[list + i];
+            result.add(new String(arena, offsets[c], lengths[c]));
+        }
+        return result;
+    }
+
+    /**
+     * @return cantidad de palabras mal escritas con correcciones
+     */
+    int size() {
+        return keys;
+    }
+
+    /**
+     * @return caracteres guardados en el arreglo compartido
+     */
+    int arenaSize() {
+        return arenaSize;
+    }
+
+    /**
+     * @return cantidad de listas distintas de correcciones (solo despues de freeze)
+     */
+    int distinctLists() {
+        int count = 0;
+        for (int list = 0; list < lists.length; list += lists[list] + 1) count++;
+        return count;
+    }
+
+    private int find(CharSequence word) {
+        int length = word.length();
+        int h = 0;
+        for (int i = 0; i < length; i++) h = 31 * h + Character.toLowerCase(word.charAt(i));
+        for (int slot = mix(h) & mask; slots[slot] != NONE; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (lengths[id] == length && equalsLower(id, word)) return id;
+        }
+        return NONE;
+    }
+
+    private boolean equalsLower(int id, CharSequence word) {
+        int offset = offsets[id];
+        for (int i = 0; i < word.length(); i++) {
+            if (arena[offset + i] != Character.toLowerCase(word.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return el id del string, agregandolo al arreglo compartido si es nuevo
+     */
+    private int intern(char[] buffer, int start, int length) {
+        int h = hash(buffer, start, length);
+        int slot = mix(h) & mask;
+        int id;
+        while ((id = slots[slot]) != NONE) {
+            if (lengths[id] == length && regionEquals(id, buffer, start, length)) return id;
+            slot = (slot + 1) & mask;
+        }
+
+        if (arenaSize + length > arena.length) arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        System.arraycopy(buffer, start, arena, arenaSize, length);
+        if (strings == offsets.length) {
+            int capacity = strings * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            corrections = Arrays.copyOf(corrections, capacity);
+            Arrays.fill(corrections, strings, capacity, NONE);
+        }
+        id = strings++;
+        offsets[id] = arenaSize;
+        lengths[id] = length;
+        arenaSize += length;
+        slots[slot] = id;
+        //factor de carga maximo 1/2: las busquedas fallidas cortan rapido
+        if (strings * 2 > slots.length) rehash();
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        Arrays.fill(slots, NONE);
+        for (int id = 0; id < strings; id++) {
+            int slot = mix(hash(arena, offsets[id], lengths[id])) & mask;
+            while (slots[slot] != NONE) slot = (slot + 1) & mask;
+            slots[slot] = id;
+        }
+    }
+
+    private boolean regionEquals(int id, char[] buffer, int start, int length) {
+        int offset = offsets[id];
+        for (int i = 0; i < length; i++) {
+            if (arena[offset + i] != buffer[start + i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameList(int[] packed, int list, int[] ids, int n) {
+        if (packed[list] != n) return false;
+        for (int i = 0; i < n; i++) {
+            if (packed[list + 1 + i] != ids[i]) return false;
+        }
+        return true;
+    }
+
+    private static int hash(char[] buffer, int start, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) h = 31 * h + buffer[start + i];
+        return h;
+    }
+
+    private static int hashIds(int[] ids, int n) {
+        int h = n;
+        for (int i = 0; i < n; i++) h = 31 * h + ids[i];
+        return h;
+    }
+
+    /**
+     * Mezcla los bits altos en los bajos: el hash polinomico de strings parecidos difiere sobre todo arriba.
+     */
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
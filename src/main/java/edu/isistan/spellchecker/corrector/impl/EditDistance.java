@@ -0,0 +1,191 @@
+package edu.isistan.spellchecker.corrector.impl;
+
+/**
+ * Motor de distancia de Levenshtein por programacion dinamica con filas reutilizables.
+ * Opcionalmente cuenta los swaps de letras contiguas como una edicion (ver {@link #damerauDistance}).
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Las filas se reutilizan entre llamadas, por lo que una instancia no es thread-safe.
+ * Para uso compartido ver {@link #get()}, que da una instancia por thread.
+ * <li> Se recibe una cota {@code max}: solo se calcula la banda de ancho 2*max+1 alrededor de la
+ * diagonal y se corta apenas toda la fila supera la cota. En ese caso se retorna {@code max + 1}.
+ * <li> Se descartan el prefijo y el sufijo comun antes de arrancar, sin copiar los strings.
+ * </ul>
+ */
+public final class EditDistance {
+    private static final ThreadLocal<EditDistance> LOCAL = ThreadLocal.withInitial(EditDistance::new);
+
+    private int[] prev2;
+    private int[] prev;
+    private int[] curr;
+
+    public EditDistance() {
+        this.prev2 = new int[32];
+        this.prev = new int[32];
+        this.curr = new int[32];
+    }
+
+    /**
+     * @return la instancia de este thread
+     */
+    public static EditDistance get() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Distancia de Levenshtein sin cota.
+     */
+    public int distance(CharSequence a, CharSequence b) {
+        return distance(a, b, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Distancia de Levenshtein acotada.
+     *
+     * @param a primer string
+     * @param b segundo string
+     * @param max cota maxima, mayor o igual a 0
+     * @return la distancia si es menor o igual a max, si no {@code max + 1}
+     */
+    public int distance(CharSequence a, CharSequence b, int max) {
+        return compute(a, b, max, false);
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein (optimal string alignment) sin cota: ademas de insertar, borrar y
+     * cambiar, intercambiar dos letras contiguas cuenta como una sola edicion ("thsi" -> "this").
+     */
+    public int damerauDistance(CharSequence a, CharSequence b) {
+        return damerauDistance(a, b, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein (optimal string alignment) acotada. Cada subcadena se edita
+     * a lo sumo una vez, asi que "ca" -> "abc" es 3 y no 2.
+     *
+     * @param a primer string
+     * @param b segundo string
+     * @param max cota maxima, mayor o igual a 0
+     * @return la distancia si es menor o igual a max, si no {@code max + 1}
+     */
+    public int damerauDistance(CharSequence a, CharSequence b, int max) {
+        return compute(a, b, max, true);
+    }
+
+    private int compute(CharSequence a, CharSequence b, int max, boolean transpositions) {
+        if (max < 0) throw new IllegalArgumentException("max must not be negative");
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+
+        //prefijo y sufijo comun no aportan ediciones
+        int start = commonPrefix(a, b);
+        while (n > start && m > start && a.charAt(n - 1) == b.charAt(m - 1)) {
+            n--;
+            m--;
+        }
+        n -= start;
+        m -= start;
+        if (n == 0) return m; //la diferencia de largos ya se chequeo contra max
+        if (m == 0) return n;
+
+        //la distancia nunca supera el largo mayor: asi max + 1 no desborda
+        if (max > Math.max(n, m)) max = Math.max(n, m);
+        int outOfBand = max + 1;
+
+        ensureCapacity(m + 1);
+        int[] prev2 = this.prev2;
+        int[] prev = this.prev;
+        int[] curr = this.curr;
+        int firstTo = Math.min(m, max);
+        for (int j = 0; j <= firstTo; j++) prev[j] = j;
+        if (firstTo < m) prev[firstTo + 1] = outOfBand;
+        int prevRowMin = 0;
+
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            char ca = a.charAt(start + i - 1);
+            char caPrev = i > 1 ? a.charAt(start + i - 2) : 0;
+
+            curr[from - 1] = from == 1 ? i : outOfBand;
+            int rowMin = curr[from - 1];
+            for (int j = from; j <= to; j++) {
+                char cb = b.charAt(start + j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int v = prev[j - 1] + cost;
+                int del = prev[j] + 1;
+                if (del < v) v = del;
+                int ins = curr[j - 1] + 1;
+                if (ins < v) v = ins;
+                //la fila i-2 tiene valida la banda alrededor de j-2 (ver ancho de banda)
+                if (transpositions && i > 1 && j > 1 && ca == b.charAt(start + j - 2) && caPrev == cb) {
+                    int swap = prev2[j - 2] + 1;
+                    if (swap < v) v = swap;
+                }
+                curr[j] = v;
+                if (v < rowMin) rowMin = v;
+            }
+            if (to < m) curr[to + 1] = outOfBand;
+            //con swaps la fila siguiente puede salir de la anterior a esta: se corta recien con dos filas fuera de la cota
+            if (rowMin > max && (!transpositions || prevRowMin > max)) return outOfBand;
+            prevRowMin = rowMin;
+
+            int[] tmp = prev2;
+            prev2 = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        int result = prev[m];
+        return result > max ? outOfBand : result;
+    }
+
+    /**
+     * @return true si borrando exactamente un caracter de {@code longer} se obtiene {@code shorter}
+     */
+    public static boolean isOneDeletion(CharSequence longer, CharSequence shorter) {
+        int m = shorter.length();
+        if (longer.length() != m + 1) return false;
+        int i = commonPrefix(longer, shorter);
+        //se saltea longer[i] y el resto tiene que coincidir corrido en uno
+        for (; i < m; i++) {
+            if (longer.charAt(i + 1) != shorter.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true si los strings tienen el mismo largo y difieren exactamente en un caracter
+     */
+    public static boolean isOneSubstitution(CharSequence a, CharSequence b) {
+        int n = a.length();
+        if (b.length() != n) return false;
+        int i = commonPrefix(a, b);
+        if (i == n) return false; //son iguales
+        for (i++; i < n; i++) {
+            if (a.charAt(i) != b.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return el largo del prefijo comun entre a y b
+     */
+    static int commonPrefix(CharSequence a, CharSequence b) {
+        int limit = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limit && a.charAt(i) == b.charAt(i)) i++;
+        return i;
+    }
+
+    private void ensureCapacity(int size) {
+        //+1 por la celda centinela al final de la banda
+        if (prev.length < size + 1) {
+            int newSize = Math.max(size + 1, prev.length * 2);
+            prev2 = new int[newSize];
+            prev = new int[newSize];
+            curr = new int[newSize];
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package edu.isistan.spellchecker.corrector.impl;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
@@ -8,18 +7,25 @@ import java.io.Reader;
 import java.util.*;
 
 import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.log.Log;
 
 /**
  * Corrector basado en un archivo.
- * 
+ * <p>
+ * Las correcciones se guardan en una {@link CorrectionTable}: strings en un unico char[] compartido y
+ * listas de correcciones compartidas, para que archivos de millones de lineas no llenen el heap.
  */
 public class FileCorrector extends Corrector {
+	private static final Log LOG = Log.getLog(FileCorrector.class);
+
+	private static final int READ_BUFFER = 8192;
+
 	/*
 	 * One to many
 	 * Permite facilmente saber las correcciones de una palabra.
 	 * No me permite facilmente saber, dado una correccion, a quien corrige (hay que iterar toda la estructura).
 	 */
-	private final Map<String, Set<String>> corrections;
+	private final CorrectionTable corrections;
 
 	/**
 	 * Constructor del FileReader
@@ -78,36 +84,72 @@ public class FileCorrector extends Corrector {
 	 */
 	public FileCorrector(Reader r) throws IOException, FormatException {
 		if (r == null) throw new IllegalArgumentException("Reader is null");
-		this.corrections = new HashMap<>();
-		try (BufferedReader reader = new BufferedReader(r)) {
-			Iterator<String> it = reader.lines().iterator();
-			while (it.hasNext()) {
-				String line = it.next();
-				if (line != null) {
-
-					//sacamos espacios en blanco y tabs
-					line = line.replace(" ", "");
-					line = line.replace("\t", "");
-					String words[] = line.split(",");
+		this.corrections = new CorrectionTable();
+		try (Reader reader = r) {
+			load(reader);
+		} catch (FormatException e) {
+			LOG.warn("Error creando FileCorrector: " + e.getMessage());
+			throw e;
+		}
+		corrections.freeze();
+		LOG.info(corrections.size() + " palabras con correcciones");
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(corrections.arenaSize() + " caracteres, " + corrections.distinctLists() + " listas de correcciones distintas");
+		}
+	}
 
-					String token = words[0];
-					String correccion = words[1];
+	/**
+	 * Lee el archivo de a bloques, sin crear un String por linea. Cada linea se normaliza mientras se lee:
+	 * se descartan los espacios y tabs (tambien los de adentro de las palabras) y se pasa a minusculas.
+	 *
+	 * @throws FormatException si una linea no tiene exactamente una palabra, una coma y una correccion
+	 */
+	private void load(Reader reader) throws IOException, FormatException {
+		char[] buffer = new char[READ_BUFFER];
+		char[] line = new char[64];
+		int length = 0; //caracteres normalizados de la linea
+		int comma = -1; //posicion de la coma dentro de line
+		int commas = 0;
+		int lineNumber = 1;
+		boolean lastWasCR = false;
+		boolean empty = true; //la linea no tiene ningun caracter, ni siquiera blancos
 
-					Set<String> correcs = corrections.get(token);
-					if (correcs == null) {
-						correcs = new HashSet<>();
-						corrections.put(token.toLowerCase(), correcs);
+		int read;
+		while ((read = reader.read(buffer)) >= 0) {
+			for (int i = 0; i < read; i++) {
+				char c = buffer[i];
+				if (c == '\n' || c == '\r') {
+					if (!(c == '\n' && lastWasCR)) {
+						addLine(line, length, comma, commas, lineNumber++);
+						length = 0;
+						comma = -1;
+						commas = 0;
+						empty = true;
 					}
-					correcs.add(correccion.toLowerCase());
+					lastWasCR = c == '\r';
+					continue;
 				}
+				lastWasCR = false;
+				empty = false;
+				if (c == ' ' || c == '\t') continue;
+				if (c == ',') {
+					if (commas++ == 0) comma = length;
+					continue;
+				}
+				if (length == line.length) line = Arrays.copyOf(line, length * 2);
+				line[length++] = Character.toLowerCase(c);
 			}
-		} catch (Exception e) {
-			fileCorrectorLog("Error creando FileCorrector: " + e.getMessage());
-			fileCorrectorLog("Rethrow");
-			throw new FormatException(e.getMessage());
 		}
-		fileCorrectorLog("printing correcciones:");
-		printCorrecciones();
+		//ultima linea sin salto de linea
+		if (!empty) addLine(line, length, comma, commas, lineNumber);
+	}
+
+	private void addLine(char[] line, int length, int comma, int commas, int lineNumber) throws FormatException {
+		if (commas == 0) throw new FormatException("Line " + lineNumber + ": expected misspelled_word,correction");
+		if (commas > 1) throw new FormatException("Line " + lineNumber + ": more than one comma");
+		if (comma == 0) throw new FormatException("Line " + lineNumber + ": empty misspelled word");
+		if (comma == length) throw new FormatException("Line " + lineNumber + ": empty correction");
+		corrections.add(line, 0, comma, comma, length - comma);
 	}
 
 	/** Construye el Filereader.
@@ -139,22 +181,15 @@ public class FileCorrector extends Corrector {
 	 * @throws IllegalArgumentException si la entrada no es una palabra valida 
 	 */
 	public Set<String> getCorrections(String wrong) {
-		fileCorrectorLog("Palabra a buscarle correcciones: " + wrong);
+		if (LOG.isTraceEnabled()) LOG.trace("Palabra a buscarle correcciones: " + wrong);
 		for (int i = 0; i < wrong.length(); i++) {
 			if (wrong.charAt(i) >= '0' && wrong.charAt(i) <= '9') {
 				throw new IllegalArgumentException("Word cannot contain a digit");
 			}
 		}
-		Set<String> correcs = corrections.get(wrong.toLowerCase());
-		if (correcs == null) {
-			correcs = new HashSet<>();
-		}
-		return matchCase(wrong, correcs);
+		return matchCase(wrong, corrections.get(wrong));
 	}
 
-	private void fileCorrectorLog(String text) {
-		System.out.println("\t\tFile Corrector: " + text);
-	}
 	
 
 	/** Clase especial que se utiliza al tener 
@@ -165,18 +200,4 @@ public class FileCorrector extends Corrector {
 			super(msg);
 		}
 	}
-
-	private void printCorrecciones() {
-		Set<Map.Entry<String, Set<String>>> entrySet = corrections.entrySet();
-		for (Map.Entry<String, Set<String>> entry: entrySet) {
-			StringBuilder sb = new StringBuilder("\"" + entry.getKey() + "\" -> [");
-			for (String str: entry.getValue()) {
-				sb.append(str);
-				sb.append(", ");
-			}
-			sb.delete(sb.length() -2, sb.length());
-			sb.append("]");
-			fileCorrectorLog(sb.toString());
-		}
-	}
 }
@@ -1,10 +1,13 @@
 package edu.isistan.spellchecker.corrector.impl;
+import java.util.List;
 import java.util.Set;
 
 
 import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.corrector.TopCorrections;
 import edu.isistan.spellchecker.corrector.dictionary.Dictionary;
 import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.log.Log;
 
 /**
  *
@@ -19,12 +22,19 @@ import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
  * </ul>
  *
  * Una "letra" es un caracter a-z (no contar los apostrofes).
- * Intercambiar letras (thsi -> this) <it>no</it> cuenta como una edicion.
+ * Intercambiar letras (thsi -> this) <it>no</it> cuenta como una edicion, salvo en el modo Damerau
+ * (ver {@link #Levenshtein(IDictionary, boolean)}).
  * <p>
  * Este corrector sugiere palabras que esten a edit distance uno.
+ * <p>
+ * Los candidatos se piden al diccionario con {@link IDictionary#getWordsWithinDistance}: el Dictionary
+ * usa su indice de borrados y el TrieDictionary recorre el trie podando las ramas fuera de rango.
  */
 public class Levenshtein extends Corrector {
+	private static final Log LOG = Log.getLog(Levenshtein.class);
+
 	private final IDictionary dictionary;
+	private final boolean transpositions;
 
 	/**
 	 * Construye un Levenshtein Corrector usando un Dictionary.
@@ -33,9 +43,19 @@ public class Levenshtein extends Corrector {
 	 * @param dict el diccionario
 	 */
 	public Levenshtein(IDictionary dict) {
+		this(dict, false);
+	}
+
+	/**
+	 * @param dict el diccionario
+	 * @param transpositions si es true (modo Damerau) tambien sugiere las palabras a un swap de letras contiguas,
+	 * generadas igual que en el {@link SwapCorrector}
+	 * @throws IllegalArgumentException si el diccionario es null
+	 */
+	public Levenshtein(IDictionary dict, boolean transpositions) {
 		if (dict == null) throw new IllegalArgumentException("Dictionary cannot be null");
 		this.dictionary = dict;
-
+		this.transpositions = transpositions;
 	}
 
 	/**
@@ -44,14 +64,11 @@ public class Levenshtein extends Corrector {
 	 */
 	Set<String> getDeletions(String s) {
 		if (s == null) throw new IllegalArgumentException("Word is null");
-		System.out.println("dictionary contains this words:");
-		dictionary.printAll();
-		System.out.println("word to check is " + s);
-		return matchCase(s,
-				dictionary.filterBy(
-						(String word1) -> LevenshteinImpl.deleteDistanceOne(s.toLowerCase(), word1.toLowerCase())
-				)
-		);
+		if (LOG.isTraceEnabled()) LOG.trace("Borrados para " + s);
+		String word = dictionary.getNormalizer().normalize(s);
+		Set<String> candidates = dictionary.getWordsWithinDistance(word, 1);
+		candidates.removeIf(word1 -> LevenshteinImpl.deleteDistanceOne(word, word1) != 1);
+		return matchCase(s, candidates);
 	}
 
 	/**
@@ -60,11 +77,10 @@ public class Levenshtein extends Corrector {
 	 */
 	public Set<String> getSubstitutions(String s) {
 		if (s == null) throw new IllegalArgumentException("Word is null");
-		return matchCase(s,
-				dictionary.filterBy(
-					(String word1) -> LevenshteinImpl.replaceDistanceOne(s.toLowerCase(), word1.toLowerCase())
-				)
-		);
+		String word = dictionary.getNormalizer().normalize(s);
+		Set<String> candidates = dictionary.getWordsWithinDistance(word, 1);
+		candidates.removeIf(word1 -> LevenshteinImpl.replaceDistanceOne(word, word1) != 1);
+		return matchCase(s, candidates);
 	}
 
 
@@ -74,19 +90,32 @@ public class Levenshtein extends Corrector {
 	 */
 	public Set<String> getInsertions(String s) {
 		if (s == null) throw new IllegalArgumentException("Word is null");
-		return matchCase(s,
-				dictionary.filterBy(
-						(String word1) -> LevenshteinImpl.insertDistanceOne(s.toLowerCase(), word1.toLowerCase())
-				)
-		);
+		String word = dictionary.getNormalizer().normalize(s);
+		Set<String> candidates = dictionary.getWordsWithinDistance(word, 1);
+		candidates.removeIf(word1 -> LevenshteinImpl.insertDistanceOne(word, word1) != 1);
+		return matchCase(s, candidates);
 	}
 
 	public Set<String> getCorrections(String wrong) {
 		if (wrong == null) throw new IllegalArgumentException("Wrong is null");
-		return matchCase(wrong,
-				dictionary.filterBy(
-						(String word1) -> LevenshteinImpl.levenshteinDistance(wrong.toLowerCase(), word1.toLowerCase())
-				)
-		);
+		//los candidatos salen del indice del diccionario: solo nos quedamos con los que estan a distancia exactamente uno
+		String word = dictionary.getNormalizer().normalize(wrong);
+		Set<String> candidates = dictionary.getWordsWithinDistance(word, 1);
+		candidates.remove(word);
+		if (transpositions) candidates.addAll(SwapCorrector.transpositions(dictionary, word));
+		return matchCase(wrong, candidates);
 	};
+
+	/**
+	 * Ver superclase. Los candidatos se ordenan por distancia y por la frecuencia que tengan en el diccionario.
+	 */
+	@Override
+	public List<String> getTopCorrections(String wrong, int k) {
+		if (wrong == null) throw new IllegalArgumentException("Wrong is null");
+		String word = dictionary.getNormalizer().normalize(wrong);
+		TopCorrections top = new TopCorrections(word, k, dictionary);
+		top.offerAll(dictionary.getWordsWithinDistance(word, 1));
+		if (transpositions) top.offerAll(SwapCorrector.transpositions(dictionary, word));
+		return matchCase(wrong, top.toList());
+	}
 }
@@ -3,52 +3,76 @@ package edu.isistan.spellchecker.corrector.impl;
 import java.util.Arrays;
 
 /**
- * Contiene una implementacion recursiva de Levenshtein, e implementaciones para los metodos de delete, insert y replace a distancia uno.
+ * Contiene la distancia de Levenshtein, e implementaciones para los metodos de delete, insert y replace a distancia uno.
+ * <p>
+ * La distancia se calcula con {@link EditDistance} (programacion dinamica acotada). La implementacion recursiva
+ * original se mantiene solo como referencia para los benchmarks.
  */
 public class LevenshteinImpl {
 
     /**
-     * Implementacion recursiva de la distancia de Levenshtein. O(n**3).
+     * Distancia de Levenshtein, O(n*m) con dos filas reutilizables por thread.
      * @param str1 str a modificar
      * @param str2 target
      * @return la distancia de Levenshtein
      */
     public static int levenshteinDistance(String str1, String str2) {
+        return EditDistance.get().distance(str1, str2);
+    }
+
+    /**
+     * Distancia de Levenshtein acotada: corta apenas se sabe que la distancia supera {@code max}.
+     * @param str1 str a modificar
+     * @param str2 target
+     * @param max cota maxima
+     * @return la distancia si es menor o igual a max, si no {@code max + 1}
+     */
+    public static int levenshteinDistance(String str1, String str2, int max) {
+        return EditDistance.get().distance(str1, str2, max);
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein acotada: un swap de letras contiguas cuenta como una edicion.
+     * @param str1 str a modificar
+     * @param str2 target
+     * @param max cota maxima
+     * @return la distancia si es menor o igual a max, si no {@code max + 1}
+     * @see EditDistance#damerauDistance(CharSequence, CharSequence, int)
+     */
+    public static int damerauDistance(String str1, String str2, int max) {
+        return EditDistance.get().damerauDistance(str1, str2, max);
+    }
+
+    /**
+     * Implementacion recursiva de la distancia de Levenshtein. O(3**(n+m)).
+     * @param str1 str a modificar
+     * @param str2 target
+     * @return la distancia de Levenshtein
+     */
+    public static int levenshteinDistanceRecursive(String str1, String str2) {
         if (str1.isEmpty()) return str2.length();
         if (str2.isEmpty()) return str1.length();
 
-        int replace = levenshteinDistance(str1.substring(1), str2.substring(1))
+        int replace = levenshteinDistanceRecursive(str1.substring(1), str2.substring(1))
                 + numOfReplacement(str1.charAt(0), str2.charAt(0));
 
-        int insert = levenshteinDistance(str1, str2.substring(1)) + 1;
-        int delete = levenshteinDistance(str1.substring(1), str2) + 1;
+        int insert = levenshteinDistanceRecursive(str1, str2.substring(1)) + 1;
+        int delete = levenshteinDistanceRecursive(str1.substring(1), str2) + 1;
 
         return minEdits(replace, insert, delete);
     }
 
+    /**
+     * Retorna 1 si es posible, insertando un solo caracter, llevar str1 a str2. Si no, retorna 0.
+     * @param str1
+     * @param str2
+     * @return
+     */
     public static int insertDistanceOne(String str1, String str2) {
         if (str1.isEmpty()) return str2.length();
         if (str2.isEmpty()) return str1.length();
 
-        System.out.println("str1 es " + str1);
-        if (str1.length() + 1 != str2.length()) return 0; //solo podemos insertar uno
-
-        String newStr1 = str1;
-        for (int i = 0; i < newStr1.length(); i++) {
-            char c = str1.charAt(i);
-            char c2 = str2.charAt(i);
-            if (c != c2) { //aca podemos insertar, comparar y terminar la ejecucion
-                newStr1 = newStr1.substring(0, i) + c2 + newStr1.substring(i);
-                if (newStr1.equals(str2)) return 1;
-                else return 0;
-            }
-        }
-
-        //Una ultima posiblidad: el ultimo caracter
-        String possible = str1 + str2.charAt(str2.length()-1);
-        if (possible.equals(str2)) return 1;
-
-        return 0;
+        return EditDistance.isOneDeletion(str2, str1) ? 1 : 0;
     }
 
     /**
@@ -61,14 +85,7 @@ public class LevenshteinImpl {
         if (str1.isEmpty()) return str2.length();
         if (str2.isEmpty()) return str1.length();
 
-        if (str1.equals(str2)) return 0;
-
-        for (int i = 0; i < str1.length(); i++) { //Lo implemente a mano
-            String newStr = str1.substring(0, i) + str1.substring(i+1);
-            if (newStr.equals(str2)) return 1;
-        }
-
-        return 0;
+        return EditDistance.isOneDeletion(str1, str2) ? 1 : 0;
     }
 
     /**
@@ -81,23 +98,7 @@ public class LevenshteinImpl {
         if (str1.isEmpty()) return str2.length();
         if (str2.isEmpty()) return str1.length();
 
-        if (str1.equals(str2)) return 0;
-        if (str1.length() != str2.length()) return 0; //no va a ser posible solo reemplazando
-        String newStr1 = str1;
-        for (int i = 0; i < newStr1.length(); i++) {
-            char c = newStr1.charAt(i);
-            char c2 = str2.charAt(i);
-            if (c != c2) {
-                //needs replacement. aca podemos reemplazar, chequear y cortar la ejecucion.
-                System.out.println("newStr1 before: " + newStr1);
-                newStr1 = newStr1.substring(0, i) + c2 + newStr1.substring(i+1);
-                System.out.println("newStr1 after: " + newStr1);
-                if (newStr1.equals(str2)) return 1;
-                else return 0;
-            }
-        }
-
-        return 0;
+        return EditDistance.isOneSubstitution(str1, str2) ? 1 : 0;
     }
 
     static int numOfReplacement(char c1, char c2) {
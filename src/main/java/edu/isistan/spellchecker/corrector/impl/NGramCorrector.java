@@ -0,0 +1,97 @@
+package edu.isistan.spellchecker.corrector.impl;
+
+import java.util.List;
+import java.util.Set;
+
+import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.corrector.TopCorrections;
+import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.index.NGramIndex;
+import edu.isistan.spellchecker.log.Log;
+
+/**
+ * Corrector que sugiere las palabras a distancia de Levenshtein {@code maxDistance} o menos, buscando los
+ * candidatos en un indice invertido de trigramas (ver {@link NGramIndex}).
+ * <p>
+ * Sirve para palabras largas y distancias mayores a uno, donde el indice de borrados del Dictionary crece
+ * demasiado y el trie poda poco. Para las palabras cortas, donde contar trigramas no descarta nada, los
+ * candidatos se piden al diccionario con {@link IDictionary#getWordsWithinDistance}.
+ * <p>
+ * El indice se arma al crear el corrector con las palabras que tiene el diccionario en ese momento.
+ */
+public class NGramCorrector extends Corrector {
+	private static final Log LOG = Log.getLog(NGramCorrector.class);
+
+	/**
+	 * Distancia por defecto: con distancia uno alcanza con el indice de borrados del diccionario.
+	 */
+	public static final int DEFAULT_MAX_DISTANCE = 2;
+
+	private final IDictionary dictionary;
+	private final NGramIndex index;
+	private final int maxDistance;
+
+	/**
+	 * @param dict el diccionario
+	 * @throws IllegalArgumentException si el diccionario es null
+	 */
+	public NGramCorrector(IDictionary dict) {
+		this(dict, DEFAULT_MAX_DISTANCE);
+	}
+
+	/**
+	 * @param dict el diccionario
+	 * @param maxDistance distancia maxima de las sugerencias
+	 * @throws IllegalArgumentException si el diccionario es null o la distancia es menor a 1
+	 */
+	public NGramCorrector(IDictionary dict, int maxDistance) {
+		if (dict == null) throw new IllegalArgumentException("Dictionary cannot be null");
+		if (maxDistance < 1) throw new IllegalArgumentException("maxDistance must be at least 1");
+		this.dictionary = dict;
+		this.maxDistance = maxDistance;
+		long start = System.nanoTime();
+		this.index = NGramIndex.build(dict.filterBy(w -> 1));
+		LOG.info(index.size() + " words, " + index.grams() + " trigrams indexed in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms");
+	}
+
+	public int getMaxDistance() {
+		return maxDistance;
+	}
+
+	/**
+	 * Ver superclase.
+	 *
+	 * @param wrong
+	 * @return retorna un conjunto (potencialmente vacio) de sugerencias.
+	 * @throws IllegalArgumentException si la palabra es null
+	 */
+	public Set<String> getCorrections(String wrong) {
+		if (wrong == null) throw new IllegalArgumentException("Wrong word is null");
+		String word = dictionary.getNormalizer().normalize(wrong);
+		Set<String> candidates = candidates(word);
+		candidates.remove(word);
+		return matchCase(wrong, candidates);
+	}
+
+	/**
+	 * Ver superclase. Los candidatos se ordenan por distancia y por la frecuencia que tengan en el diccionario.
+	 */
+	@Override
+	public List<String> getTopCorrections(String wrong, int k) {
+		if (wrong == null) throw new IllegalArgumentException("Wrong word is null");
+		String word = dictionary.getNormalizer().normalize(wrong);
+		TopCorrections top = new TopCorrections(word, k, dictionary);
+		top.offerAll(candidates(word));
+		return matchCase(wrong, top.toList());
+	}
+
+	private Set<String> candidates(String word) {
+		Set<String> candidates = index.candidates(word, maxDistance);
+		if (candidates == null) {
+			if (LOG.isTraceEnabled()) LOG.trace("Sin filtro de trigramas para " + word);
+			candidates = dictionary.getWordsWithinDistance(word, maxDistance);
+		}
+		return candidates;
+	}
+}
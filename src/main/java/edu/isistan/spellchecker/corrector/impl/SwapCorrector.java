@@ -1,8 +1,11 @@
 package edu.isistan.spellchecker.corrector.impl;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.corrector.TopCorrections;
 import edu.isistan.spellchecker.corrector.dictionary.Dictionary;
 import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
 
@@ -42,6 +45,8 @@ public class SwapCorrector extends Corrector {
 	 * <p>
 	 * Solo cambio de letras contiguas se considera como swap.
 	 * <p>
+	 * Se generan los swaps de la palabra y se consultan al diccionario con isWord, ver {@link #transpositions}.
+	 * <p>
 	 * Ver superclase.
 	 *
 	 * @param wrong 
@@ -50,36 +55,43 @@ public class SwapCorrector extends Corrector {
 	 */
 	public Set<String> getCorrections(String wrong) {
 		if (wrong == null) throw new IllegalArgumentException("Wrong word is null");
-		return matchCase(wrong,
-			dictionary.filterBy(
-				(String dictWord) -> {
-					String wrongWord = wrong.toLowerCase();
-					//Intento ver si, cuando sea necesario, puedo hacer que sean iguales haciendo un solo swap
-					//En dicho caso, retorno 1. Si no, retorno 0.
-					if (wrongWord.length() != dictWord.length()) return 0;
-
-					for (int i = 0; i < wrongWord.length(); i++) {
-						char c1 = wrongWord.charAt(i);
-						char c2 = dictWord.charAt(i);
-						if (c1 != c2) {
-							//Swapeo hacia adelante porque hacia atras son iguales (por como estoy iterando)
-							//wrong: wiht       length = 4, i = 2
-							//dictWord: with
-							if (i == wrongWord.length()-1) //ultima posicion, no podemos avanzar
-								return 0;
+		return matchCase(wrong, transpositions(dictionary, dictionary.getNormalizer().normalize(wrong)));
+	}
 
-							String possible = "";
-							if (i < wrongWord.length()-2) //anteultima posicion
-								 possible = wrongWord.substring(0, i) + wrongWord.charAt(i+1) + wrongWord.charAt(i) + wrongWord.substring(i+2);
-							else possible = wrongWord.substring(0, i) + wrongWord.charAt(i+1) + wrongWord.charAt(i);
+	/**
+	 * Ver superclase. Todos los swaps estan a distancia uno: se ordenan por frecuencia en el diccionario.
+	 */
+	@Override
+	public List<String> getTopCorrections(String wrong, int k) {
+		if (wrong == null) throw new IllegalArgumentException("Wrong word is null");
+		String word = dictionary.getNormalizer().normalize(wrong);
+		TopCorrections top = new TopCorrections(word, k, dictionary);
+		top.offerAll(transpositions(dictionary, word));
+		return matchCase(wrong, top.toList());
+	}
 
-							if (possible.equals(dictWord)) return 1;
-							else return 0;
-						}
-					}
-					return 0;
-				}
-			)
-		);
+	/**
+	 * Genera los L-1 swaps de letras contiguas de la palabra sobre un unico char[] y se queda con los que
+	 * estan en el diccionario. Cuesta O(L^2) por palabra, sin recorrer el diccionario.
+	 *
+	 * @param dictionary diccionario a consultar
+	 * @param word palabra en lower-case
+	 * @return las palabras del diccionario a exactamente un swap de word (nunca incluye a word)
+	 */
+	static Set<String> transpositions(IDictionary dictionary, String word) {
+		Set<String> corrections = new HashSet<>();
+		char[] chars = word.toCharArray();
+		for (int i = 0; i < chars.length - 1; i++) {
+			char c = chars[i];
+			//swapear dos letras iguales da la misma palabra
+			if (c == chars[i + 1]) continue;
+			chars[i] = chars[i + 1];
+			chars[i + 1] = c;
+			String candidate = new String(chars);
+			if (dictionary.isWord(candidate)) corrections.add(candidate);
+			chars[i + 1] = chars[i];
+			chars[i] = c;
+		}
+		return corrections;
 	}
 }
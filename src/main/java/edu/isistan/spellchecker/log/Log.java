@@ -0,0 +1,125 @@
+package edu.isistan.spellchecker.log;
+
+import java.util.function.Supplier;
+
+/**
+ * Fachada de logging por niveles, sin dependencias externas.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Un nivel deshabilitado no cuesta nada mas que comparar dos enteros: en los loops calientes el llamador
+ * pregunta primero (por ejemplo {@link #isDebugEnabled()}) y recien ahi arma el mensaje. Para mensajes caros
+ * fuera de los loops se puede pasar un {@link Supplier}, que solo se evalua si el nivel esta habilitado.
+ * <li> El nivel y el destino son globales. El nivel inicial sale de la propiedad de sistema
+ * {@code spellchecker.log} (por defecto INFO).
+ * <li> Los mensajes van a un {@link LogSink} separado de la salida al usuario: por defecto System.err,
+ * nunca System.out.
+ * </ul>
+ */
+public final class Log {
+    /**
+     * Niveles, de mas detallado a menos detallado. OFF deshabilita todo.
+     */
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static volatile int threshold = initialLevel().ordinal();
+    private static volatile LogSink sink = LogSink.STDERR;
+
+    private final String name;
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param type clase que loguea, su nombre simple aparece en cada mensaje
+     */
+    public static Log getLog(Class<?> type) {
+        return new Log(type.getSimpleName());
+    }
+
+    public static Log getLog(String name) {
+        return new Log(name);
+    }
+
+    public static Level getLevel() {
+        return Level.values()[threshold];
+    }
+
+    public static void setLevel(Level level) {
+        if (level == null) throw new IllegalArgumentException("Level is null");
+        threshold = level.ordinal();
+    }
+
+    public static LogSink getSink() {
+        return sink;
+    }
+
+    public static void setSink(LogSink newSink) {
+        if (newSink == null) throw new IllegalArgumentException("Sink is null");
+        sink = newSink;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public boolean isTraceEnabled() {
+        return Level.TRACE.ordinal() >= threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() >= threshold;
+    }
+
+    public boolean isInfoEnabled() {
+        return Level.INFO.ordinal() >= threshold;
+    }
+
+    public void trace(String message) {
+        log(Level.TRACE, message);
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    /**
+     * @param message se evalua solo si el nivel esta habilitado
+     */
+    public void log(Level level, Supplier<String> message) {
+        if (isEnabled(level)) sink.write(level, name, message.get());
+    }
+
+    public void log(Level level, String message) {
+        if (isEnabled(level)) sink.write(level, name, message);
+    }
+
+    private static Level initialLevel() {
+        String property = System.getProperty("spellchecker.log");
+        if (property == null) return Level.INFO;
+        try {
+            return Level.valueOf(property.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package edu.isistan.spellchecker.log;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Destino de los mensajes de {@link Log}. Las implementaciones tienen que ser thread-safe.
+ */
+@FunctionalInterface
+public interface LogSink {
+    /**
+     * Escribe a la salida de error estandar.
+     */
+    LogSink STDERR = to(System.err);
+
+    /**
+     * Descarta todo.
+     */
+    LogSink NONE = (level, name, message) -> { };
+
+    void write(Log.Level level, String name, String message);
+
+    /**
+     * @param out stream destino. PrintStream sincroniza cada println.
+     * @return un sink que escribe una linea por mensaje: {@code NIVEL nombre: mensaje}
+     */
+    static LogSink to(PrintStream out) {
+        return (level, name, message) -> out.println(level + " " + name + ": " + message);
+    }
+
+    /**
+     * @param file archivo donde se agregan los mensajes
+     * @return un sink que escribe al archivo, con buffer y flush por linea
+     * @throws IOException si no se puede abrir el archivo
+     */
+    static LogSink toFile(Path file) throws IOException {
+        try {
+            return to(new PrintStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                    true, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IOException(e);
+        }
+    }
+}
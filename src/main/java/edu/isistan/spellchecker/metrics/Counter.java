@@ -0,0 +1,45 @@
+package edu.isistan.spellchecker.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monotono y thread-safe. Ademas del total informa la tasa por segundo desde que se creo
+ * (o desde el ultimo {@link #reset()}).
+ * <p>
+ * Decision: es un {@link LongAdder}, asi varios threads lo incrementan sin pelearse por la misma
+ * linea de cache; leerlo es mas caro, pero solo se lee al volcar las metricas.
+ */
+public class Counter {
+    private final LongAdder value = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long n) {
+        value.add(n);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * @return promedio por segundo desde que se creo o se reinicio el contador
+     */
+    public double getRate() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : get() * 1e9 / elapsed;
+    }
+
+    public void reset() {
+        value.reset();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + get() + String.format(" rate=%.1f/s", getRate());
+    }
+}
@@ -0,0 +1,135 @@
+package edu.isistan.spellchecker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de valores no negativos (latencias, cantidades), thread-safe y de tamanio fijo.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> No se guardan las muestras: cada potencia de dos se parte en 8 buckets (como HdrHistogram), asi el
+ * error de un percentil es de a lo sumo 12,5% y la memoria no depende de la cantidad de muestras.
+ * <li> Registrar es un incremento atomico sin locks. Los percentiles se calculan sobre los contadores
+ * del momento: con pedidos en curso pueden no incluir las ultimas muestras.
+ * </ul>
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final String unit;
+
+    public Histogram() {
+        this("");
+    }
+
+    /**
+     * @param unit unidad de los valores, solo para mostrarlos (por ejemplo "ns" o "us")
+     */
+    public Histogram(String unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @param value valor a registrar; los negativos se registran como 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Vuelve a cero. Las muestras que se registran mientras tanto pueden quedar a medias.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        max.set(0);
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return cantidad de muestras registradas
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return el mayor valor registrado
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile entre 0 y 100
+     * @return cota superior del valor del percentil pedido, o 0 si no hay muestras
+     * @throws IllegalArgumentException si el percentil esta fuera de rango
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+                + " p50=" + getPercentile(50) + unit
+                + " p90=" + getPercentile(90) + unit
+                + " p99=" + getPercentile(99) + unit
+                + " p999=" + getPercentile(99.9) + unit
+                + " max=" + getMax() + unit;
+    }
+
+    /**
+     * Los valores menores a SUB_BUCKETS tienen un bucket cada uno. El resto usa los bits siguientes
+     * al mas significativo para elegir el sub-bucket de su potencia de dos.
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return el menor valor del bucket
+     */
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return el mayor valor del bucket
+     */
+    static long upperBound(int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
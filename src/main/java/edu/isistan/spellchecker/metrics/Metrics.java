@@ -0,0 +1,182 @@
+package edu.isistan.spellchecker.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.isistan.spellchecker.log.Log;
+
+/**
+ * Registro global de metricas por nombre: contadores, histogramas y gauges.
+ * <p>
+ * Los nombres son de la forma {@code etapa.componente.metrica}, por ejemplo
+ * {@code corrector.Levenshtein.latency}. Las metricas se crean la primera vez que se piden y despues
+ * se comparten: quien mide guarda la referencia y no vuelve a buscarla por nombre.
+ * <p>
+ * Decisiones:
+ * <ul>
+ * <li> Estan deshabilitadas por defecto ({@code -Dspellchecker.metrics=true} o {@link #setEnabled}).
+ * Deshabilitadas, {@code MeteredCorrector.wrap} y {@code MeteredDictionary.wrap} devuelven el mismo
+ * objeto sin envolverlo y el TokenScanner solo suma en campos propios, asi que el costo es un chequeo
+ * de un booleano por documento o por llamada.
+ * <li> Se exponen por JMX como un unico MBean dinamico ({@link #registerMBean()}) y como texto
+ * ({@link #dump()}), que se puede volcar al log periodicamente ({@link #startPeriodicDump}).
+ * </ul>
+ */
+public final class Metrics {
+    private static final Log LOG = Log.getLog(Metrics.class);
+
+    public static final String OBJECT_NAME = "edu.isistan.spellchecker:type=Metrics";
+
+    private static final Map<String, Object> REGISTRY = new ConcurrentSkipListMap<>();
+    private static volatile boolean enabled = Boolean.getBoolean("spellchecker.metrics");
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Los componentes que se crean despues del cambio lo respetan; los ya creados dejan de medir
+     * (o empiezan a medir, si ya estaban envueltos) en la siguiente llamada.
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static Counter counter(String name) {
+        return get(name, Counter.class, Counter::new);
+    }
+
+    /**
+     * @return histograma sin unidad, para cantidades (por ejemplo candidatos por consulta)
+     */
+    public static Histogram histogram(String name) {
+        return get(name, Histogram.class, Histogram::new);
+    }
+
+    /**
+     * @return histograma de latencias en nanosegundos
+     */
+    public static Histogram latency(String name) {
+        return get(name, Histogram.class, () -> new Histogram("ns"));
+    }
+
+    /**
+     * Registra (o reemplaza) un valor que se calcula al leerlo.
+     */
+    public static void gauge(String name, DoubleSupplier gauge) {
+        REGISTRY.put(name, gauge);
+    }
+
+    private static <T> T get(String name, Class<T> type, Supplier<T> factory) {
+        Object metric = REGISTRY.computeIfAbsent(name, n -> factory.get());
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException(name + " is not a " + type.getSimpleName());
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * Los valores de todas las metricas como atributos planos: los histogramas se abren en
+     * {@code .count}, {@code .p50}, {@code .p99}, {@code .p999} y {@code .max}, y los contadores
+     * agregan {@code .rate}.
+     *
+     * @return atributo -> valor, ordenados por nombre
+     */
+    public static Map<String, Number> values() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry: REGISTRY.entrySet()) {
+            String name = entry.getKey();
+            Object metric = entry.getValue();
+            if (metric instanceof Counter) {
+                Counter counter = (Counter) metric;
+                values.put(name, counter.get());
+                values.put(name + ".rate", counter.getRate());
+            } else if (metric instanceof Histogram) {
+                Histogram histogram = (Histogram) metric;
+                values.put(name + ".count", histogram.getCount());
+                values.put(name + ".p50", histogram.getPercentile(50));
+                values.put(name + ".p99", histogram.getPercentile(99));
+                values.put(name + ".p999", histogram.getPercentile(99.9));
+                values.put(name + ".max", histogram.getMax());
+            } else {
+                values.put(name, ((DoubleSupplier) metric).getAsDouble());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return una linea por metrica, ordenadas por nombre
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> entry: REGISTRY.entrySet()) {
+            Object metric = entry.getValue();
+            String value = metric instanceof DoubleSupplier
+                    ? String.format("%.4f", ((DoubleSupplier) metric).getAsDouble()) : metric.toString();
+            sb.append(entry.getKey()).append(' ').append(value).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Vuelca {@link #dump()} al log (nivel INFO) cada {@code period}, desde un thread daemon.
+     *
+     * @return la tarea, para cancelarla
+     */
+    public static synchronized ScheduledFuture<?> startPeriodicDump(long period, TimeUnit unit) {
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return dumper.scheduleAtFixedRate(() -> LOG.info("metricas:" + System.lineSeparator() + dump()),
+                period, period, unit);
+    }
+
+    /**
+     * Registra el MBean {@value #OBJECT_NAME} en el MBeanServer de la plataforma, si no estaba.
+     *
+     * @return false si no se pudo registrar
+     */
+    public static synchronized boolean registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(new MetricsJmx(), name);
+            return true;
+        } catch (JMException e) {
+            LOG.warn("No se pudo registrar el MBean de metricas: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Pone en cero todos los contadores e histogramas. Las metricas siguen registradas, porque los
+     * componentes guardan sus referencias.
+     */
+    public static void reset() {
+        for (Object metric: REGISTRY.values()) {
+            if (metric instanceof Counter) ((Counter) metric).reset();
+            else if (metric instanceof Histogram) ((Histogram) metric).reset();
+        }
+    }
+}
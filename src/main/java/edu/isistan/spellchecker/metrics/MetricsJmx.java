@@ -0,0 +1,72 @@
+package edu.isistan.spellchecker.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Expone {@link Metrics#values()} por JMX. Es dinamico porque las metricas se van registrando
+ * a medida que se usan los componentes: cada {@link #getMBeanInfo()} refleja las que hay en ese momento.
+ */
+class MetricsJmx implements DynamicMBean {
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = Metrics.values().get(attribute);
+        if (value == null) throw new AttributeNotFoundException(attribute);
+        return value;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> values = Metrics.values();
+        AttributeList list = new AttributeList();
+        for (String attribute: attributes) {
+            Number value = values.get(attribute);
+            if (value != null) list.add(new Attribute(attribute, value));
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (!"reset".equals(actionName)) {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+        Metrics.reset();
+        return null;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Number> entry: Metrics.values().entrySet()) {
+            attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                    entry.getKey(), true, false, false));
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Pone en cero contadores e histogramas",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Metricas del spell checker",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {reset}, null);
+    }
+}
@@ -0,0 +1,263 @@
+package edu.isistan.spellchecker.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.metrics.Histogram;
+import edu.isistan.spellchecker.tokenizer.TokenScanner;
+
+/**
+ * Servidor HTTP que carga el diccionario y el corrector una sola vez y atiende pedidos de correccion.
+ * <p>
+ * Endpoints (el cuerpo y las respuestas son texto plano en UTF-8):
+ * <ul>
+ * <li> {@code POST /check}: el cuerpo es un documento. Responde una linea
+ * {@code linea<TAB>palabra<TAB>correccion} por cada palabra que no esta en el diccionario, con la mejor
+ * correccion o vacio si no hay ninguna.
+ * <li> {@code POST /suggest?k=5}: el cuerpo es un lote de palabras separadas por espacios o saltos de linea.
+ * Responde una linea {@code palabra<TAB>sugerencia1,sugerencia2,...} por palabra, con hasta k sugerencias.
+ * <li> {@code GET /stats}: latencias por endpoint (cantidad, p50, p90, p99, p99.9 y maximo en microsegundos).
+ * </ul>
+ * Decisiones:
+ * <ul>
+ * <li> Los pedidos se atienden en un pool de tamanio fijo con una cola acotada. Si la cola se llena el
+ * pedido lo atiende el thread que acepta conexiones, lo que frena la aceptacion en lugar de acumular
+ * pedidos en memoria.
+ * <li> El diccionario y el corrector se comparten entre todos los threads: tienen que ser thread-safe
+ * para lecturas (lo son todos los del proyecto; el CachingCorrector tambien para escrituras).
+ * <li> Los cuerpos de mas de {@link #MAX_BODY_BYTES} se rechazan con 413.
+ * </ul>
+ */
+public class SpellCheckServer implements AutoCloseable {
+    private static final Log LOG = Log.getLog(SpellCheckServer.class);
+
+    public static final int DEFAULT_SUGGESTIONS = 5;
+    public static final int MAX_BODY_BYTES = 8 << 20;
+    private static final int QUEUE_PER_THREAD = 64;
+
+    private final IDictionary dict;
+    private final Corrector corrector;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Histogram> latencies = new LinkedHashMap<>();
+
+    /**
+     * Un endpoint recibe el cuerpo y los parametros del pedido y retorna el cuerpo de la respuesta.
+     */
+    private interface Endpoint {
+        String handle(String body, Map<String, String> params) throws IOException;
+    }
+
+    /**
+     * @param dict diccionario para reconocer las palabras
+     * @param corrector corrector para las sugerencias
+     * @param address direccion donde escuchar. Puerto 0 toma uno libre (ver {@link #getPort()}).
+     * @param threads cantidad de threads que atienden pedidos
+     * @throws IOException si no se puede abrir el puerto
+     * @throws IllegalArgumentException si algun parametro es null o threads no es positivo
+     */
+    public SpellCheckServer(IDictionary dict, Corrector corrector, InetSocketAddress address, int threads) throws IOException {
+        if (dict == null || corrector == null || address == null) throw new IllegalArgumentException("Null argument");
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        this.dict = dict;
+        this.corrector = corrector;
+        this.server = HttpServer.create(address, 0);
+
+        AtomicInteger ids = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD),
+                r -> new Thread(r, "spellcheck-http-" + ids.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        server.setExecutor(executor);
+        server.createContext("/check", timed("/check", this::check));
+        server.createContext("/suggest", timed("/suggest", this::suggest));
+        server.createContext("/stats", this::stats);
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("Escuchando en el puerto " + getPort());
+    }
+
+    /**
+     * @return el puerto donde escucha el servidor
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @param path endpoint, por ejemplo {@code /check}
+     * @return las latencias del endpoint, o null si no existe
+     */
+    public Histogram getLatencies(String path) {
+        return latencies.get(path);
+    }
+
+    /**
+     * Deja de aceptar pedidos y espera a lo sumo un segundo a los que estan en curso.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        LOG.info("Servidor detenido." + System.lineSeparator() + statsReport());
+    }
+
+    private String check(String body, Map<String, String> params) throws IOException {
+        StringBuilder response = new StringBuilder();
+        long line = 1;
+        TokenScanner ts = new TokenScanner(new StringReader(body));
+        while (ts.hasNext()) {
+            String token = ts.next();
+            if (!TokenScanner.isWord(token)) {
+                line += countNewLines(token);
+            } else if (!dict.isWord(token)) {
+                List<String> top = corrector.getTopCorrections(token, 1);
+                response.append(line).append('\t').append(token).append('\t')
+                        .append(top.isEmpty() ? "" : top.get(0)).append('\n');
+            }
+        }
+        return response.toString();
+    }
+
+    private String suggest(String body, Map<String, String> params) throws IOException {
+        int k = params.containsKey("k") ? Integer.parseInt(params.get("k")) : DEFAULT_SUGGESTIONS;
+        StringBuilder response = new StringBuilder();
+        TokenScanner ts = new TokenScanner(new StringReader(body));
+        while (ts.hasNext()) {
+            String token = ts.next();
+            if (!TokenScanner.isWord(token)) continue;
+            response.append(token).append('\t').append(String.join(",", corrector.getTopCorrections(token, k))).append('\n');
+        }
+        return response.toString();
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, statsReport());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String statsReport() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry: latencies.entrySet()) {
+            sb.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Envuelve el endpoint: valida el metodo y el cuerpo, traduce los errores a codigos HTTP y
+     * registra la latencia de cada pedido antes de enviar la respuesta.
+     */
+    private HttpHandler timed(String path, Endpoint endpoint) {
+        Histogram histogram = new Histogram("us");
+        latencies.put(path, histogram);
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                int status;
+                String response;
+                try {
+                    if (!"POST".equals(exchange.getRequestMethod())) {
+                        exchange.getResponseHeaders().add("Allow", "POST");
+                        status = 405;
+                        response = "Use POST\n";
+                    } else {
+                        String body = readBody(exchange.getRequestBody());
+                        if (body == null) {
+                            status = 413;
+                            response = "Body larger than " + MAX_BODY_BYTES + " bytes\n";
+                        } else {
+                            response = endpoint.handle(body, parseQuery(exchange.getRequestURI().getRawQuery()));
+                            status = 200;
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    status = 400;
+                    response = "Bad request: " + e.getMessage() + "\n";
+                } catch (RuntimeException e) {
+                    LOG.error("Error atendiendo " + path + ": " + e);
+                    status = 500;
+                    response = "Internal error\n";
+                }
+                //se registra antes de responder: un cliente que ya tiene la respuesta la ve en /stats
+                histogram.record((System.nanoTime() - start) / 1000);
+                send(exchange, status, response);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * @return el cuerpo en UTF-8, o null si supera {@link #MAX_BODY_BYTES}
+     */
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (body.size() + read > MAX_BODY_BYTES) return null;
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        if (query == null || query.isEmpty()) return Collections.emptyMap();
+        Map<String, String> params = new HashMap<>();
+        for (String pair: query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return params;
+    }
+
+    private static int countNewLines(String token) {
+        int n = 0;
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) == '\n') n++;
+        }
+        return n;
+    }
+}
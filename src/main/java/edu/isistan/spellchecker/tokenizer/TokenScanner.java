@@ -4,12 +4,50 @@ import java.util.*;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.metrics.Counter;
+import edu.isistan.spellchecker.metrics.Metrics;
 
 /**
  * Dado un archivo provee un metodo para recorrerlo.
+ * <p>
+ * Los tokens son:
+ * <ul>
+ * <li> secuencias de caracteres que no son espacios ni alguno de {@code .,;!?$}
+ * <li> cada uno de los caracteres {@code .,;!?$} por separado
+ * <li> secuencias de espacios. Un salto de linea termina el token, y el espacio que esta justo
+ * antes de un salto de linea va junto con el (por ejemplo {@code "a  \nb"} da {@code "a", " ", " \n", "b"}).
+ * </ul>
+ * Decision: en lugar de un Scanner con un delimitador de lookarounds, es una maquina de estados
+ * escrita a mano que lee sobre un buffer de chars reutilizable. Ademas del Iterator, tiene un modo
+ * sin copias ({@link #advance()}) que informa la posicion del token dentro del buffer.
+ * <p>
+ * Los tokens y caracteres leidos se cuentan en campos propios y se suman a las {@link Metrics}
+ * ({@code tokenizer.tokens}, {@code tokenizer.chars}) al llegar al final o al cerrarlo.
  */
 public class TokenScanner implements Iterator<String>, AutoCloseable {
-    private final Scanner sc;
+    private static final Log LOG = Log.getLog(TokenScanner.class);
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final Counter TOKENS = Metrics.counter("tokenizer.tokens");
+    private static final Counter CHARS = Metrics.counter("tokenizer.chars");
+
+    private final java.io.Reader in;
+    private char[] buffer;
+    private int position; //proximo caracter sin consumir
+    private int limit; //fin de los datos validos del buffer
+    private boolean eof;
+
+    private int tokenStart;
+    private int tokenLength;
+    private boolean pending; //hasNext() ya avanzo al proximo token y next() todavia no lo consumio
+
+    private long tokens; //todavia no sumados a las metricas
+    private long chars;
+
     private String name;
     /**
      * Crea un TokenScanner.
@@ -24,9 +62,22 @@ public class TokenScanner implements Iterator<String>, AutoCloseable {
      * @throws IllegalArgumentException si el Reader provisto es null
      */
     public TokenScanner(java.io.Reader in) throws IOException {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Crea un TokenScanner con un buffer inicial del tamanio dado. El buffer crece si aparece
+     * un token mas largo.
+     *
+     * @param in fuente de entrada
+     * @param bufferSize tamanio inicial del buffer, en chars
+     * @throws IOException              si hay algun error leyendo.
+     * @throws IllegalArgumentException si el Reader provisto es null
+     */
+    public TokenScanner(java.io.Reader in, int bufferSize) throws IOException {
         if (in == null) throw new IllegalArgumentException("Reader provisto es null.");
-        this.sc = new Scanner(in);
-        sc.useDelimiter("(?<=\\s)(?=\\S)|(?<=\\S)(?=\\s)|(?<=\\n)|(?=[.,;!?$])|(?<=[.,;!?$])|(?<=\\s\\n)|(?=\\s\\n)");
+        this.in = in;
+        this.buffer = new char[Math.max(2, bufferSize)];
         this.name = "TokenScanner";
     }
 
@@ -34,13 +85,14 @@ public class TokenScanner implements Iterator<String>, AutoCloseable {
      * Determina si un caracter es una caracter valido para una palabra.
      * <p>
      * Un caracter valido es una letra (
-     * Character.isLetter) o una apostrofe '\''.
+     * Character.isLetter), una apostrofe '\'' o un acento combinado con la letra anterior
+     * (por ejemplo U+0301), asi una palabra escrita con acentos separados (NFD) no se corta en pedazos.
      *
      * @param c
      * @return true si es un caracter
      */
     public static boolean isWordCharacter(int c) {
-        return (Character.isLetter(c) || c == '\'');
+        return (Character.isLetter(c) || c == '\'' || WordNormalizer.isMark(c));
     }
 
     /**
@@ -48,12 +100,13 @@ public class TokenScanner implements Iterator<String>, AutoCloseable {
      * Null no es una palabra valida.
      * Un string que todos sus caracteres son validos es una
      * palabra. Por lo tanto, el string vacio es una palabra valida.
+     * Una palabra no puede empezar con un acento combinado: no tiene a que letra acentuar.
      * 
      * @param s
      * @return true si el string es una palabra.
      */
     public static boolean isWord(String s) {
-        if (s == null || s.isEmpty()) return false;
+        if (s == null || s.isEmpty() || WordNormalizer.isMark(s.charAt(0))) return false;
         for (int i = 0; i < s.length(); i++){
             if (!isWordCharacter(s.charAt(i)))
                 return false;
@@ -61,30 +114,166 @@ public class TokenScanner implements Iterator<String>, AutoCloseable {
         return true;
     }
 
+    /**
+     * Determina si un token del buffer es una palabra valida, sin crear el String.
+     *
+     * @see #isWord(String)
+     */
+    public static boolean isWord(char[] buffer, int start, int length) {
+        if (length == 0 || WordNormalizer.isMark(buffer[start])) return false;
+        for (int i = start; i < start + length; i++) {
+            if (!isWordCharacter(buffer[i]))
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Determina si hay otro token en el reader.
+     *
+     * @throws UncheckedIOException si hay un error leyendo
      */
     public boolean hasNext() {
-        return sc.hasNext();
+        if (!pending) {
+            pending = readToken();
+        }
+        return pending;
     }
 
     /**
      * Retorna el siguiente token.
      *
      * @throws NoSuchElementException cuando se alcanzo el final de stream
+     * @throws UncheckedIOException si hay un error leyendo
      */
     public String next() throws NoSuchElementException {
-        String token = sc.next();
-        return token;
+        if (!hasNext()) throw new NoSuchElementException();
+        pending = false;
+        return new String(buffer, tokenStart, tokenLength);
+    }
+
+    /**
+     * Modo sin copias: avanza al siguiente token sin crear un String.
+     * El token queda en {@link #getBuffer()} desde {@link #getTokenStart()} con largo
+     * {@link #getTokenLength()}, y solo es valido hasta el proximo llamado a advance, hasNext o next.
+     *
+     * @return false si se alcanzo el final del stream
+     * @throws UncheckedIOException si hay un error leyendo
+     */
+    public boolean advance() {
+        boolean found = hasNext();
+        pending = false;
+        return found;
+    }
+
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    public int getTokenLength() {
+        return tokenLength;
     }
 
     public void close() {
-        this.sc.close();
+        flushMetrics();
+        try {
+            in.close();
+        } catch (IOException e) {
+            LOG.warn(getName() + ": error cerrando: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recorre el proximo token y deja sus limites en tokenStart/tokenLength.
+     * Las posiciones se manejan relativas al inicio del token porque fill() puede mover los datos.
+     */
+    private boolean readToken() {
+        if (!available(0)) {
+            flushMetrics();
+            return false;
+        }
+        int length = 1;
+        while (available(length) && !isBoundary(position + length)) {
+            length++;
+        }
+        tokenStart = position;
+        tokenLength = length;
+        position += length;
+        tokens++;
+        return true;
+    }
+
+    private void flushMetrics() {
+        if (tokens == 0 && chars == 0) return;
+        if (Metrics.isEnabled()) {
+            TOKENS.add(tokens);
+            CHARS.add(chars);
+        }
+        tokens = 0;
+        chars = 0;
+    }
+
+    /**
+     * Hay limite de token entre buffer[i-1] y buffer[i]. Para el caso del espacio antes de un salto
+     * de linea se mira tambien buffer[i+1] si ya se leyo (available(length) lo garantiza).
+     */
+    private boolean isBoundary(int i) {
+        char previous = buffer[i - 1];
+        char current = buffer[i];
+        if (previous == '\n') return true;
+        if (isPunctuation(previous) || isPunctuation(current)) return true;
+        boolean previousSpace = isSpace(previous);
+        boolean currentSpace = isSpace(current);
+        if (previousSpace != currentSpace) return true;
+        return currentSpace && i + 1 < limit && buffer[i + 1] == '\n';
+    }
+
+    /**
+     * Se asegura de que el caracter en position + offset (y el siguiente, si existe) esten en el buffer.
+     * @return true si position + offset esta dentro de los datos
+     */
+    private boolean available(int offset) {
+        try {
+            while (!eof && position + offset + 1 >= limit) {
+                fill();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return position + offset < limit;
+    }
+
+    private void fill() throws IOException {
+        if (limit == buffer.length) {
+            if (position > 0) { //compactar: se descarta lo ya consumido
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            } else { //el token no entra en el buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) eof = true;
+        else {
+            limit += read;
+            chars += read;
+        }
+    }
+
+    /**
+     * Mismo criterio que \s en las expresiones regulares de Java.
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
-    //Utils
-    private void tokenScannerLog(Object text) {
-        System.out.println(getName() + ": " + text);
+    private static boolean isPunctuation(char c) {
+        return c == '.' || c == ',' || c == ';' || c == '!' || c == '?' || c == '$';
     }
 
     public String getName() {
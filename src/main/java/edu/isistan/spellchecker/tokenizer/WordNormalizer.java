@@ -0,0 +1,194 @@
+package edu.isistan.spellchecker.tokenizer;
+
+import java.text.Normalizer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Normaliza palabras para guardarlas y buscarlas en los diccionarios.
+ * <p>
+ * Hay dos caminos:
+ * <ul>
+ * <li> Al cargar, {@link #normalize(String)} aplica la forma configurada a toda la palabra (con
+ * {@link java.text.Normalizer} si hace falta) y la pasa a minusculas.
+ * <li> Al buscar, los diccionarios no copian la palabra: la recorren (al hashearla o al bajar por el trie)
+ * pasando cada caracter por {@link #fold(char)}, que es una tabla precalculada. Solo las palabras que la
+ * tabla no alcanza a normalizar (con acentos combinados, o fuera de la tabla al sacar acentos) pasan por
+ * el camino completo, ver {@link #forLookup(CharSequence)}.
+ * </ul>
+ * Decision: las minusculas son caracter por caracter ({@link Character#toLowerCase(char)}) tanto al cargar
+ * como al buscar, asi los dos caminos coinciden y no dependen del locale por defecto.
+ * <p>
+ * La forma por defecto se configura con {@code -Dspellchecker.normalization=LOWER_CASE|NFC|FOLD_ACCENTS}.
+ */
+public final class WordNormalizer {
+
+    public enum Form {
+        /**
+         * Solo minusculas.
+         */
+        LOWER_CASE,
+        /**
+         * Ademas compone los acentos (NFC): "&eacute;" y una "e" seguida del acento combinado (U+0301) son
+         * la misma palabra.
+         */
+        NFC,
+        /**
+         * Ademas saca acentos y diacriticos: "cancion" y "canci&oacute;n" son la misma palabra. Las palabras
+         * se guardan, y se sugieren, sin acentos.
+         */
+        FOLD_ACCENTS
+    }
+
+    /**
+     * Caracteres con tabla: latin, griego, cirilico y el latin extendido adicional (U+1E00-U+1EFF).
+     */
+    private static final int TABLE_SIZE = 0x2000;
+
+    private static final Map<Form, WordNormalizer> INSTANCES = new EnumMap<>(Form.class);
+    static {
+        for (Form form: Form.values()) INSTANCES.put(form, new WordNormalizer(form));
+    }
+
+    private static final WordNormalizer DEFAULT =
+            of(Form.valueOf(System.getProperty("spellchecker.normalization", Form.LOWER_CASE.name()).toUpperCase()));
+
+    private final Form form;
+    private final char[] folded = new char[TABLE_SIZE];
+    private final boolean[] complex = new boolean[TABLE_SIZE]; //el caracter necesita el camino completo
+
+    private WordNormalizer(Form form) {
+        this.form = form;
+        for (int c = 0; c < TABLE_SIZE; c++) {
+            char ch = (char) c;
+            folded[c] = Character.toLowerCase(ch);
+            if (form == Form.LOWER_CASE) continue;
+            if (isMark(ch)) {
+                complex[c] = true;
+            } else if (form == Form.FOLD_ACCENTS) {
+                String base = stripMarks(Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFD));
+                if (base.length() == 1) folded[c] = Character.toLowerCase(base.charAt(0));
+                else complex[c] = true;
+            }
+        }
+    }
+
+    /**
+     * @return el normalizador de la forma dada (son inmutables y compartidos)
+     */
+    public static WordNormalizer of(Form form) {
+        return INSTANCES.get(form);
+    }
+
+    /**
+     * @return el normalizador configurado con {@code -Dspellchecker.normalization}, por defecto LOWER_CASE
+     */
+    public static WordNormalizer getDefault() {
+        return DEFAULT;
+    }
+
+    public Form getForm() {
+        return form;
+    }
+
+    /**
+     * Normaliza un caracter. Solo es exacto si la palabra no necesita el camino completo (ver {@link #forLookup}).
+     */
+    public char fold(char c) {
+        return c < TABLE_SIZE ? folded[c] : Character.toLowerCase(c);
+    }
+
+    /**
+     * Normaliza una palabra completa.
+     *
+     * @return la palabra normalizada; la misma instancia si ya estaba normalizada
+     */
+    public String normalize(String word) {
+        int length = word.length();
+        int i = 0;
+        while (i < length) {
+            char c = word.charAt(i);
+            if (isComplex(c)) return normalizeFully(word);
+            if (fold(c) != c) break;
+            i++;
+        }
+        if (i == length) return word;
+        char[] chars = new char[length];
+        word.getChars(0, i, chars, 0);
+        for (; i < length; i++) {
+            char c = word.charAt(i);
+            if (isComplex(c)) return normalizeFully(word);
+            chars[i] = fold(c);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return la palabra tal cual si alcanza con {@link #fold(char)} caracter por caracter para buscarla,
+     * o ya normalizada si no (por ejemplo si trae acentos combinados)
+     */
+    public CharSequence forLookup(CharSequence word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (isComplex(word.charAt(i))) return normalizeFully(word.toString());
+        }
+        return word;
+    }
+
+    /**
+     * @return el mismo hash que {@code normalize(word).hashCode()}, si la palabra no necesita el camino completo
+     */
+    public int hash(CharSequence word) {
+        int h = 0;
+        for (int i = 0; i < word.length(); i++) h = 31 * h + fold(word.charAt(i));
+        return h;
+    }
+
+    /**
+     * @param normalized palabra ya normalizada
+     * @param word palabra sin normalizar que no necesita el camino completo
+     * @return true si word normalizada es igual a normalized
+     */
+    public boolean equalsNormalized(String normalized, CharSequence word) {
+        int length = word.length();
+        if (normalized.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (normalized.charAt(i) != fold(word.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private boolean isComplex(char c) {
+        if (c < TABLE_SIZE) return complex[c];
+        return form == Form.FOLD_ACCENTS || (form == Form.NFC && isMark(c));
+    }
+
+    private String normalizeFully(String word) {
+        if (form == Form.LOWER_CASE) return normalize(word);
+        String normalized = form == Form.NFC
+                ? Normalizer.normalize(word, Normalizer.Form.NFC)
+                : stripMarks(Normalizer.normalize(word, Normalizer.Form.NFD));
+        StringBuilder sb = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    private static String stripMarks(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            if (!isMark(s.charAt(i))) sb.append(s.charAt(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Acentos y otros diacriticos combinados con el caracter anterior.
+     */
+    static boolean isMark(int c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+}
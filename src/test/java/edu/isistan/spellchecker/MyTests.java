@@ -1,17 +1,73 @@
 package edu.isistan.spellchecker;
+import edu.isistan.spellchecker.benchmarks.SyntheticCorpus;
+import edu.isistan.spellchecker.corrector.Corrector;
+import edu.isistan.spellchecker.corrector.MeteredCorrector;
+import edu.isistan.spellchecker.corrector.dictionary.CompactTrieDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.ConcurrentDictionary;
 import edu.isistan.spellchecker.corrector.dictionary.Dictionary;
+import edu.isistan.spellchecker.corrector.dictionary.DictionaryLoader;
+import edu.isistan.spellchecker.corrector.dictionary.DictionarySnapshot;
 import edu.isistan.spellchecker.corrector.dictionary.IDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.MeteredDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.TrieDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.dawg.DawgCompiler;
+import edu.isistan.spellchecker.corrector.dictionary.dawg.MappedDawgDictionary;
+import edu.isistan.spellchecker.corrector.dictionary.index.DeletionIndex;
+import edu.isistan.spellchecker.corrector.dictionary.index.LengthIndex;
+import edu.isistan.spellchecker.corrector.dictionary.trie.CompactTrie;
 import edu.isistan.spellchecker.corrector.dictionary.trie.Trie;
+import edu.isistan.spellchecker.corrector.impl.CachingCorrector;
+import edu.isistan.spellchecker.corrector.impl.EditDistance;
 import edu.isistan.spellchecker.corrector.impl.FileCorrector;
+import edu.isistan.spellchecker.corrector.impl.Levenshtein;
+import edu.isistan.spellchecker.corrector.impl.LevenshteinImpl;
+import edu.isistan.spellchecker.corrector.impl.NGramCorrector;
 import edu.isistan.spellchecker.corrector.impl.SwapCorrector;
+import edu.isistan.spellchecker.log.Log;
+import edu.isistan.spellchecker.log.LogSink;
+import edu.isistan.spellchecker.metrics.Histogram;
+import edu.isistan.spellchecker.metrics.Metrics;
+import edu.isistan.spellchecker.server.SpellCheckServer;
 import edu.isistan.spellchecker.tokenizer.TokenScanner;
+import edu.isistan.spellchecker.tokenizer.WordNormalizer;
 import org.junit.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import static org.junit.Assert.*;
 
@@ -397,4 +453,1151 @@ public class MyTests {
         System.out.println("search filter by for cat: " + words.size() + " words obtained");
     }
 
+    // Tests para el indice de borrados
+
+    /**
+     * Los candidatos del indice incluyen todas las palabras a distancia uno (y algunas de mas).
+     */
+    @Test
+    public void testDeletionIndexCandidates() {
+        DeletionIndex index = new DeletionIndex(1);
+        index.add("cat");
+        index.add("cart");
+        index.add("at");
+        index.add("dog");
+
+        Set<String> candidates = index.candidates("cat");
+        assertTrue(candidates.contains("cat"));
+        assertTrue(candidates.contains("cart"));
+        assertTrue(candidates.contains("at"));
+        assertFalse(candidates.contains("dog"));
+    }
+
+    /**
+     * El Levenshtein sobre el indice da lo mismo con Dictionary y con TrieDictionary.
+     */
+    @Test
+    public void testLevenshteinUsesIndex() throws IOException {
+        String words = "bat cat cart at hat chat dog";
+        Levenshtein dictLev = new Levenshtein(new Dictionary(new TokenScanner(new StringReader(words))));
+        Levenshtein trieLev = new Levenshtein(new TrieDictionary(new TokenScanner(new StringReader(words))));
+
+        Set<String> expected = new HashSet<>();
+        expected.add("bat");
+        expected.add("cart");
+        expected.add("at");
+        expected.add("hat");
+        expected.add("chat");
+        assertEquals(expected, dictLev.getCorrections("cat"));
+        assertEquals(expected, trieLev.getCorrections("cat"));
+    }
+
+    // Tests para el motor de distancia
+
+    /**
+     * La version por programacion dinamica coincide con la recursiva, y la acotada corta en max + 1.
+     */
+    @Test
+    public void testEditDistanceMatchesRecursive() {
+        String[] words = {"", "a", "h", "ah", "teh", "the", "tea", "kitten", "sitting", "flaw", "lawn", "abcdef", "azced"};
+        EditDistance engine = new EditDistance();
+        for (String w1: words) {
+            for (String w2: words) {
+                int expected = LevenshteinImpl.levenshteinDistanceRecursive(w1, w2);
+                assertEquals(w1 + " -> " + w2, expected, engine.distance(w1, w2));
+                for (int max = 0; max <= 3; max++) {
+                    assertEquals(w1 + " -> " + w2 + " (max " + max + ")",
+                            Math.min(expected, max + 1), engine.distance(w1, w2, max));
+                }
+            }
+        }
+    }
+
+    /**
+     * Los helpers de distancia uno mantienen su comportamiento.
+     */
+    @Test
+    public void testDistanceOneHelpers() {
+        assertEquals(1, LevenshteinImpl.deleteDistanceOne("teh", "th"));
+        assertEquals(0, LevenshteinImpl.deleteDistanceOne("teh", "teh"));
+        assertEquals(0, LevenshteinImpl.deleteDistanceOne("teh", "ht"));
+        assertEquals(1, LevenshteinImpl.insertDistanceOne("ay", "any"));
+        assertEquals(1, LevenshteinImpl.insertDistanceOne("ay", "aye"));
+        assertEquals(0, LevenshteinImpl.insertDistanceOne("ay", "bat"));
+        assertEquals(1, LevenshteinImpl.replaceDistanceOne("teh", "tea"));
+        assertEquals(0, LevenshteinImpl.replaceDistanceOne("teh", "hat"));
+        assertEquals(0, LevenshteinImpl.replaceDistanceOne("teh", "teh"));
+    }
+
+    /**
+     * La busqueda aproximada del trie encuentra lo mismo que comparar contra todas las palabras.
+     */
+    @Test
+    public void testTrieFuzzySearch() {
+        String[] words = {"cat", "cattle", "cart", "at", "bat", "chat", "home", "hose", "kitten", "sitting", "a"};
+        Trie trie = new Trie();
+        for (String w: words) trie.insert(w);
+
+        for (String query: new String[]{"cat", "kiten", "hme", "", "cattel"}) {
+            for (int max = 0; max <= 2; max++) {
+                Set<String> expected = new HashSet<>();
+                for (String w: words) {
+                    if (LevenshteinImpl.levenshteinDistance(query, w) <= max) expected.add(w);
+                }
+                assertEquals(query + " (max " + max + ")", expected, trie.fuzzySearch(query, max));
+            }
+        }
+    }
+
+    /**
+     * El trie compacto se comporta igual que el trie original.
+     */
+    @Test
+    public void testCompactTrieMatchesTrie() throws IOException {
+        String text = "Cat cattle cat home kitten kit it's a";
+        IDictionary trieDict = new TrieDictionary(new TokenScanner(new StringReader(text)));
+        IDictionary compactDict = new CompactTrieDictionary(new TokenScanner(new StringReader(text)));
+
+        assertEquals(trieDict.getNumWords(), compactDict.getNumWords());
+        for (String w: new String[]{"cat", "CAT", "catt", "kit", "ki", "it's", "a", "", "homes"}) {
+            assertEquals(w, trieDict.isWord(w), compactDict.isWord(w));
+        }
+        assertEquals(trieDict.filterBy(w -> w.length() > 3 ? 1 : 0), compactDict.filterBy(w -> w.length() > 3 ? 1 : 0));
+        assertEquals(trieDict.getWordsWithinDistance("kiten", 2), compactDict.getWordsWithinDistance("kiten", 2));
+    }
+
+    /**
+     * Busquedas por prefijo en ambos tries.
+     */
+    @Test
+    public void testTriePrefixLookups() {
+        Trie trie = new Trie();
+        CompactTrie compactTrie = new CompactTrie();
+        for (String w: new String[]{"sun", "sunflower", "flow", "flower", "cat"}) {
+            trie.insert(w);
+            compactTrie.insert(w);
+        }
+
+        assertTrue(trie.startsWith("sunf"));
+        assertTrue(compactTrie.startsWith("sunf"));
+        assertFalse(trie.startsWith("sunn"));
+        assertFalse(compactTrie.startsWith("sunn"));
+
+        assertEquals("sunflower", trie.longestPrefix("sunflowers"));
+        assertEquals("sunflower", compactTrie.longestPrefix("sunflowers"));
+        assertEquals("sun", trie.longestPrefix("sunset"));
+        assertNull(compactTrie.longestPrefix("moon"));
+
+        //partir una palabra compuesta: "sun" + "flower" sin copiar el texto
+        assertEquals(6, trie.longestPrefixLength("sunflower", 3));
+        assertEquals(6, compactTrie.longestPrefixLength("sunflower", 3));
+        assertFalse(trie.search("sunf"));
+        assertTrue(trie.search("flow"));
+    }
+
+    /**
+     * El DAWG compilado y mapeado a memoria responde igual que el Dictionary.
+     */
+    @Test
+    public void testMappedDawgDictionary() throws IOException {
+        String text = "Cat cats cattle hat hats bat bats it's tap taps top tops";
+        Path file = Files.createTempFile("dictionary", ".dawg");
+        try {
+            DawgCompiler.compile(new StringReader(text), file);
+            MappedDawgDictionary dawg = new MappedDawgDictionary(file);
+            IDictionary dict = new Dictionary(new TokenScanner(new StringReader(text)));
+
+            assertEquals(dict.getNumWords(), dawg.getNumWords());
+            assertEquals(dict.filterBy(w -> 1), dawg.filterBy(w -> 1));
+            for (String w: new String[]{"cat", "Cats", "catt", "it's", "ca", "tops", "topss", ""}) {
+                assertEquals(w, dict.isWord(w), dawg.isWord(w));
+            }
+            assertEquals(dict.getWordsWithinDistance("cst", 1), dawg.getWordsWithinDistance("cst", 1));
+            //los sufijos "s" compartidos se minimizan: menos nodos que un trie
+            assertTrue(dawg.getNumNodes() < 30);
+
+            //la normalizacion queda en el archivo: se busca con la misma aunque la configurada sea otra
+            WordNormalizer fold = WordNormalizer.of(WordNormalizer.Form.FOLD_ACCENTS);
+            DawgCompiler.compile(new StringReader("Canci\u00f3n ping\u00fcino"), file, fold);
+            MappedDawgDictionary folded = new MappedDawgDictionary(file);
+            assertSame(fold, folded.getNormalizer());
+            for (String w: new String[]{"cancion", "CANCI\u00d3N", "cancio\u0301n", "pinguino"}) {
+                assertTrue(w, folded.isWord(w));
+            }
+            assertFalse(folded.isWord("canci"));
+
+            //un header corrupto falla al abrir, no en la primera busqueda
+            byte[] bytes = Files.readAllBytes(file);
+            ByteBuffer header = ByteBuffer.wrap(bytes);
+            int numNodes = header.getInt(16);
+            header.putInt(16, numNodes + (1 << 29)); //nodos * 8 desborda en int y da el mismo tamanio
+            Files.write(file, bytes);
+            try {
+                new MappedDawgDictionary(file);
+                fail("Se abrio un DAWG con la cantidad de nodos corrupta");
+            } catch (IOException e) {
+            }
+            header.putInt(16, numNodes);
+            header.putInt(24, numNodes); //raiz fuera de rango
+            Files.write(file, bytes);
+            try {
+                new MappedDawgDictionary(file);
+                fail("Se abrio un DAWG con la raiz corrupta");
+            } catch (IOException e) {
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * El chequeo en batch corrige varios documentos en paralelo y deja las palabras sin correccion.
+     */
+    @Test
+    public void testCheckDocumentsBatch() throws IOException {
+        IDictionary dict = new Dictionary(new TokenScanner(new StringReader("the table is red")));
+        SpellChecker checker = new SpellChecker(new SwapCorrector(dict), dict);
+        Path inDir = Files.createTempDirectory("batch-in");
+        Path outDir = inDir.resolve("out");
+        List<Path> documents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Path document = inDir.resolve("doc" + i + ".txt");
+            Files.write(document, ("Teh tabel is red, blue " + i + ".\n").getBytes());
+            documents.add(document);
+        }
+
+        List<DocumentStats> stats = checker.checkDocuments(documents, outDir, 3);
+
+        assertEquals(5, stats.size());
+        for (int i = 0; i < 5; i++) {
+            DocumentStats s = stats.get(i);
+            assertEquals(documents.get(i), s.getDocument());
+            assertFalse(s.isFailed());
+            assertEquals(3, s.getUnknownWords()); //Teh, tabel, blue
+            assertEquals(2, s.getCorrected());
+            assertEquals("The table is red, blue " + i + ".\n",
+                    new String(Files.readAllBytes(outDir.resolve("doc" + i + ".txt"))));
+        }
+
+        //dos documentos con el mismo nombre, o la salida sobre la entrada, se rechazan antes de escribir nada
+        Path other = Files.createDirectories(inDir.resolve("other")).resolve("doc0.txt");
+        Files.write(other, "otro\n".getBytes());
+        try {
+            checker.checkDocuments(Arrays.asList(documents.get(0), other), inDir.resolve("out2"), 2);
+            fail("duplicate output");
+        } catch (IllegalArgumentException expected) {
+            assertFalse(Files.exists(inDir.resolve("out2").resolve("doc0.txt")));
+        }
+        try {
+            checker.checkDocuments(documents, inDir, 2);
+            fail("output over input");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("Teh tabel is red, blue 0.\n", new String(Files.readAllBytes(documents.get(0))));
+        }
+    }
+
+    /**
+     * El tokenizer a mano corta los tokens exactamente donde los cortaba el Scanner con expresiones regulares.
+     * Se usa un buffer chico para forzar que los tokens crucen recargas del buffer.
+     */
+    @Test
+    public void testTokenScannerMatchesRegexScanner() throws IOException {
+        String alphabet = "ab' .,;!?$\n\t\r1-";
+        Random random = new Random(1);
+        for (int it = 0; it < 5000; it++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(25);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String text = sb.toString();
+
+            List<String> expected = new ArrayList<>();
+            Scanner sc = new Scanner(new StringReader(text));
+            sc.useDelimiter("(?<=\\s)(?=\\S)|(?<=\\S)(?=\\s)|(?<=\\n)|(?=[.,;!?$])|(?<=[.,;!?$])|(?<=\\s\\n)|(?=\\s\\n)");
+            while (sc.hasNext()) expected.add(sc.next());
+
+            List<String> tokens = new ArrayList<>();
+            try (TokenScanner ts = new TokenScanner(new StringReader(text), 2)) {
+                while (ts.hasNext()) tokens.add(ts.next());
+            }
+            assertEquals(text, expected, tokens);
+        }
+    }
+
+    /**
+     * El modo sin copias informa los mismos tokens como posiciones en el buffer.
+     */
+    @Test
+    public void testTokenScannerZeroCopy() throws IOException {
+        try (TokenScanner ts = new TokenScanner(new StringReader("Aren't you \ntired$"))) {
+            List<String> tokens = new ArrayList<>();
+            int words = 0;
+            while (ts.advance()) {
+                tokens.add(new String(ts.getBuffer(), ts.getTokenStart(), ts.getTokenLength()));
+                if (TokenScanner.isWord(ts.getBuffer(), ts.getTokenStart(), ts.getTokenLength())) words++;
+            }
+            assertEquals(Arrays.asList("Aren't", " ", "you", " \n", "tired", "$"), tokens);
+            assertEquals(3, words);
+            assertFalse(ts.hasNext());
+        }
+    }
+
+    // Tests para el CachingCorrector
+
+    /**
+     * Corrector que cuenta cuantas veces se le pidieron correcciones.
+     */
+    private static class CountingCorrector extends Corrector {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Set<String> getCorrections(String wrong) {
+            if (wrong == null) throw new IllegalArgumentException("null");
+            calls.incrementAndGet();
+            Set<String> s = new HashSet<>();
+            s.add(wrong + "!");
+            return s;
+        }
+    }
+
+    /**
+     * Las palabras repetidas no se recalculan, y el LRU saca la usada hace mas tiempo.
+     */
+    @Test
+    public void testCachingCorrectorLru() {
+        CountingCorrector counting = new CountingCorrector();
+        CachingCorrector cache = new CachingCorrector(counting, 2, CachingCorrector.Eviction.LRU);
+
+        assertEquals(counting.getCorrections("teh"), cache.getCorrections("teh"));
+        cache.getCorrections("teh");
+        cache.getCorrections("recieve");
+        assertEquals(3, counting.calls.get()); //1 del assert + 2 misses
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        cache.getCorrections("teh"); //teh pasa a ser la mas reciente
+        cache.getCorrections("wiht"); //sale recieve
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.getCorrections("teh");
+        assertEquals(3, cache.getHits());
+
+        try {
+            cache.getCorrections(null);
+            fail("Deberia delegar el null y tirar excepcion.");
+        } catch (IllegalArgumentException e) {
+            //se espera
+        }
+    }
+
+    /**
+     * Con TINY_LFU una palabra que aparece una sola vez no desplaza a una frecuente.
+     */
+    @Test
+    public void testCachingCorrectorTinyLfu() {
+        CountingCorrector counting = new CountingCorrector();
+        CachingCorrector cache = new CachingCorrector(counting, 1, CachingCorrector.Eviction.TINY_LFU);
+
+        for (int i = 0; i < 5; i++) cache.getCorrections("teh");
+        cache.getCorrections("once");
+        cache.getCorrections("teh");
+        assertEquals(5, cache.getHits());
+        assertEquals(1, cache.getRejections());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    /**
+     * Varios threads usando el mismo cache obtienen siempre la correccion correcta.
+     */
+    @Test
+    public void testCachingCorrectorConcurrent() throws Exception {
+        CachingCorrector cache = new CachingCorrector(new CountingCorrector(), 64, CachingCorrector.Eviction.TINY_LFU);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(executor.submit(() -> {
+                Random random = new Random();
+                for (int i = 0; i < 20000; i++) {
+                    String word = "w" + random.nextInt(200);
+                    if (!cache.getCorrections(word).contains(word + "!")) return false;
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> result: results) assertTrue(result.get());
+        executor.shutdown();
+        assertEquals(80000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.size() <= 64);
+    }
+
+    // Tests para los swaps y el modo Damerau
+
+    /**
+     * Distancia OSA de referencia, sin banda ni cortes.
+     */
+    private static int naiveDamerau(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    /**
+     * La distancia Damerau acotada coincide con la de referencia en palabras aleatorias de un alfabeto chico.
+     */
+    @Test
+    public void testDamerauDistance() {
+        EditDistance engine = new EditDistance();
+        assertEquals(1, engine.damerauDistance("thsi", "this"));
+        assertEquals(2, engine.distance("thsi", "this"));
+        assertEquals(3, engine.damerauDistance("ca", "abc"));
+
+        Random random = new Random(11);
+        for (int k = 0; k < 5000; k++) {
+            String a = randomWord(random, "abc", 8);
+            String b = randomWord(random, "abc", 8);
+            int expected = naiveDamerau(a, b);
+            assertEquals(a + " -> " + b, expected, engine.damerauDistance(a, b));
+            for (int max = 0; max <= 3; max++) {
+                assertEquals(a + " -> " + b + " (max " + max + ")",
+                        Math.min(expected, max + 1), engine.damerauDistance(a, b, max));
+            }
+        }
+    }
+
+    private static String randomWord(Random random, String letters, int maxLength) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) sb.append(letters.charAt(random.nextInt(letters.length())));
+        return sb.toString();
+    }
+
+    /**
+     * El SwapCorrector encuentra todos los swaps, incluso en la ultima posicion, y nunca sugiere la misma palabra.
+     */
+    @Test
+    public void testSwapCorrectorProbes() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("heat\nhate\nthe\nbook\nboko")));
+        SwapCorrector swapCorrector = new SwapCorrector(dict);
+
+        assertEquals(new HashSet<>(Arrays.asList("heat", "hate")), swapCorrector.getCorrections("haet"));
+        assertEquals(new HashSet<>(Arrays.asList("the")), swapCorrector.getCorrections("teh"));
+        assertEquals(new HashSet<>(Arrays.asList("boko")), swapCorrector.getCorrections("book"));
+        assertTrue(swapCorrector.getCorrections("a").isEmpty());
+    }
+
+    /**
+     * En modo Damerau el Levenshtein tambien sugiere los swaps.
+     */
+    @Test
+    public void testLevenshteinDamerauMode() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("this\nthin\nthe")));
+        assertEquals(new HashSet<>(Arrays.asList("the", "thin", "this")), new Levenshtein(dict).getCorrections("thi"));
+        assertTrue(new Levenshtein(dict).getCorrections("thsi").isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("this")), new Levenshtein(dict, true).getCorrections("thsi"));
+        assertEquals(new HashSet<>(Arrays.asList("This")), new Levenshtein(dict, true).getCorrections("Thsi"));
+    }
+
+    // Tests para las sugerencias ordenadas
+
+    /**
+     * Las frecuencias opcionales se leen de la segunda columna, sin afectar a las palabras.
+     */
+    @Test
+    public void testDictionaryFrequencies() throws IOException {
+        String source = "the\t500\nthen 20\nthem\nthey\t7 extra\nthe\t10\n";
+        List<IDictionary> dictionaries = Arrays.asList(
+                new Dictionary(new TokenScanner(new StringReader(source))),
+                new TrieDictionary(new TokenScanner(new StringReader(source))),
+                new CompactTrieDictionary(new TokenScanner(new StringReader(source))));
+        for (IDictionary dict: dictionaries) {
+            assertEquals(5, dict.getNumWords());
+            assertEquals(510, dict.getFrequency("the"));
+            assertEquals(510, dict.getFrequency("THE"));
+            assertEquals(20, dict.getFrequency("then"));
+            assertEquals(0, dict.getFrequency("them"));
+            assertEquals(7, dict.getFrequency("they"));
+            assertEquals(0, dict.getFrequency("extra"));
+            assertEquals(0, dict.getFrequency("absent"));
+            assertFalse(dict.isWord("500"));
+        }
+    }
+
+    /**
+     * Las sugerencias se ordenan por distancia, despues por frecuencia y despues alfabeticamente.
+     */
+    @Test
+    public void testTopCorrections() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("thin\t5\nthis\t100\nthe\t50\nthing\t1\ntin\n")));
+        Levenshtein lev = new Levenshtein(dict);
+
+        assertEquals(Arrays.asList("this", "the", "thin"), lev.getTopCorrections("thi", 10));
+        assertEquals(Arrays.asList("this", "the"), lev.getTopCorrections("thi", 2));
+        assertEquals(Arrays.asList("This"), lev.getTopCorrections("Thi", 1));
+        assertTrue(lev.getTopCorrections("xyzzy", 3).isEmpty());
+        try {
+            lev.getTopCorrections("thi", 0);
+            fail("k tiene que ser al menos 1");
+        } catch (IllegalArgumentException e) {
+            //se espera
+        }
+
+        //sin diccionario (FileCorrector): por distancia y alfabeticamente
+        Corrector fixed = new Corrector() {
+            @Override
+            public Set<String> getCorrections(String wrong) {
+                return matchCase(wrong, new HashSet<>(Arrays.asList("there", "their", "three")));
+            }
+        };
+        assertEquals(Arrays.asList("their", "there", "three"), fixed.getTopCorrections("ther", 5));
+    }
+
+    /**
+     * El cache responde un k menor con un prefijo de la lista ya calculada.
+     */
+    @Test
+    public void testCachingTopCorrections() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("thin\t5\nthis\t100\nthe\t50\n")));
+        CachingCorrector cache = new CachingCorrector(new Levenshtein(dict), 16, CachingCorrector.Eviction.LRU);
+
+        assertEquals(Arrays.asList("this", "the", "thin"), cache.getTopCorrections("thi", 3));
+        assertEquals(Arrays.asList("this"), cache.getTopCorrections("thi", 1));
+        assertEquals(1, cache.getHits());
+        assertEquals(new HashSet<>(Arrays.asList("this", "the", "thin")), cache.getCorrections("thi"));
+        assertEquals(2, cache.getMisses());
+        assertEquals(Arrays.asList("this", "the", "thin"), cache.getTopCorrections("thi", 5));
+        assertEquals(3, cache.getMisses());
+    }
+
+    // Tests para la correccion automatica en streaming
+
+    /**
+     * Las tres politicas para palabras sin correccion, y el reporte con numeros de linea.
+     */
+    @Test
+    public void testAutoCorrectPolicies() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("the\ntable\nis\nred")));
+        SpellChecker checker = new SpellChecker(new SwapCorrector(dict), dict);
+        Path dir = Files.createTempDirectory("auto");
+        Path in = dir.resolve("in.txt");
+        Files.write(in, "Teh tabel is red,\nqwerty!\n\nis xyz.".getBytes());
+
+        DocumentStats stats = checker.autoCorrect(in, dir.resolve("keep.txt"), UnknownWordPolicy.KEEP, null);
+        assertEquals("The table is red,\nqwerty!\n\nis xyz.", new String(Files.readAllBytes(dir.resolve("keep.txt"))));
+        assertEquals(7, stats.getWords());
+        assertEquals(4, stats.getUnknownWords());
+        assertEquals(2, stats.getCorrected());
+
+        checker.autoCorrect(in, dir.resolve("mark.txt"), UnknownWordPolicy.MARK, null);
+        assertEquals("The table is red,\n[qwerty]!\n\nis [xyz].", new String(Files.readAllBytes(dir.resolve("mark.txt"))));
+
+        Path report = dir.resolve("report.txt");
+        checker.autoCorrect(in, dir.resolve("report-out.txt"), UnknownWordPolicy.REPORT, report);
+        assertEquals(new String(Files.readAllBytes(dir.resolve("keep.txt"))),
+                new String(Files.readAllBytes(dir.resolve("report-out.txt"))));
+        assertEquals(Arrays.asList("2\tqwerty", "4\txyz"), Files.readAllLines(report));
+
+        try {
+            checker.autoCorrect(in, dir.resolve("x.txt"), UnknownWordPolicy.REPORT, null);
+            fail("REPORT necesita un archivo de reporte");
+        } catch (IllegalArgumentException e) {
+            //se espera
+        }
+    }
+
+    /**
+     * Un documento de muchos lotes sale igual que corrigiendolo palabra por palabra, en el mismo orden.
+     */
+    @Test
+    public void testAutoCorrectManyBatches() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("the\ntable\nis\nred\nblue")));
+        SpellChecker checker = new SpellChecker(new SwapCorrector(dict), dict);
+        Path dir = Files.createTempDirectory("auto-big");
+        StringBuilder text = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append(i % 3 == 0 ? "teh " : "blue ").append(i % 10 == 0 ? "zzz\n" : "is ");
+            expected.append(i % 3 == 0 ? "the " : "blue ").append(i % 10 == 0 ? "zzz\n" : "is ");
+        }
+        Path in = dir.resolve("in.txt");
+        Files.write(in, text.toString().getBytes());
+
+        DocumentStats stats = checker.autoCorrect(in, dir.resolve("out.txt"), UnknownWordPolicy.KEEP, null);
+        assertEquals(expected.toString(), new String(Files.readAllBytes(dir.resolve("out.txt"))));
+        assertEquals(40000, stats.getWords());
+        assertEquals(6667 + 2000, stats.getUnknownWords());
+        assertEquals(6667, stats.getCorrected());
+    }
+
+    /**
+     * Un error de lectura corta el proceso con IOException en lugar de colgarse.
+     */
+    @Test(expected = IOException.class)
+    public void testAutoCorrectMissingInput() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("the")));
+        SpellChecker checker = new SpellChecker(new SwapCorrector(dict), dict);
+        Path dir = Files.createTempDirectory("auto-missing");
+        checker.autoCorrect(dir.resolve("missing.txt"), dir.resolve("out.txt"), UnknownWordPolicy.KEEP, null);
+    }
+
+    // Tests para el logging
+
+    /**
+     * Un nivel deshabilitado no llega al sink ni evalua el mensaje, y el chequeo loguea por token solo en TRACE.
+     */
+    @Test
+    public void testLogLevels() throws IOException {
+        Log.Level level = Log.getLevel();
+        LogSink sink = Log.getSink();
+        List<String> lines = new ArrayList<>();
+        try {
+            Log.setSink((l, name, message) -> lines.add(l + " " + name + ": " + message));
+            Log.setLevel(Log.Level.WARN);
+            Log log = Log.getLog(MyTests.class);
+            assertFalse(log.isInfoEnabled());
+            log.info("no");
+            log.log(Log.Level.DEBUG, () -> {
+                fail("No deberia evaluarse");
+                return "no";
+            });
+            log.warn("si");
+            assertEquals(Arrays.asList("WARN MyTests: si"), lines);
+
+            Dictionary dict = new Dictionary(new TokenScanner(new StringReader("the table")));
+            SpellChecker checker = new SpellChecker(MeteredCorrector.wrap(new SwapCorrector(dict)), MeteredDictionary.wrap(dict));
+            lines.clear();
+            Log.setLevel(Log.Level.INFO);
+            checker.checkDocument(new StringReader("teh table"), new ByteArrayInputStream(new byte[0]), new StringWriter());
+            assertEquals(Arrays.asList("INFO SpellChecker: Documento chequeado."), lines);
+
+            lines.clear();
+            Log.setLevel(Log.Level.TRACE);
+            checker.checkDocument(new StringReader("teh table"), new ByteArrayInputStream(new byte[0]), new StringWriter());
+            assertTrue(lines.contains("TRACE SpellChecker: 1. Got token [teh]"));
+            assertTrue(lines.contains("DEBUG SpellChecker: 3. Usamos [the] para [teh]"));
+        } finally {
+            Log.setLevel(level);
+            Log.setSink(sink);
+        }
+    }
+
+    // Tests para el diccionario concurrente
+
+    @Test(timeout = 2000)
+    public void testConcurrentDictionaryLoadAndUpdate() throws IOException {
+        ConcurrentDictionary d = new ConcurrentDictionary(new TokenScanner(new StringReader("apple\t5\nBanana\npear\t2\n")));
+        assertEquals(3, d.getNumWords());
+        assertTrue(d.isWord("APPLE"));
+        assertEquals(5, d.getFrequency("apple"));
+        assertEquals(0, d.getFrequency("banana"));
+
+        assertTrue(d.addWord("Peach", 3));
+        assertFalse(d.addWord("peach"));
+        assertEquals(3, d.getFrequency("peach"));
+        assertEquals(4, d.getNumWords());
+        assertTrue(d.getWordsWithinDistance("pech", 1).contains("peach"));
+
+        assertTrue(d.removeWord("PEAR"));
+        assertFalse(d.removeWord("pear"));
+        assertFalse(d.isWord("pear"));
+        assertFalse(d.getWordsWithinDistance("pear", 1).contains("pear"));
+        assertEquals(3, d.getNumWords());
+    }
+
+    @Test(timeout = 2000)
+    public void testConcurrentDictionaryInvalidWord() {
+        ConcurrentDictionary d = new ConcurrentDictionary();
+        try {
+            d.addWord("two words");
+            fail("Expected IllegalArgumentException - not a word");
+        } catch (IllegalArgumentException e) {
+            //Do nothing - it's supposed to throw this
+        }
+        assertEquals(0, d.getNumWords());
+    }
+
+    /**
+     * Palabra unica (solo letras) para el writer w y el indice i.
+     */
+    private static String writerWord(int w, int i) {
+        StringBuilder sb = new StringBuilder("w").append((char) ('a' + w));
+        do {
+            sb.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return sb.toString();
+    }
+
+    /**
+     * Writers agregan y sacan sus propias palabras mientras los readers consultan. Las palabras base nunca
+     * se sacan, asi que siempre tienen que verse; al final el contador tiene que coincidir con las palabras.
+     */
+    @Test(timeout = 30000)
+    public void testConcurrentDictionaryStress() throws Exception {
+        final int writers = 4;
+        final int readers = 4;
+        final int wordsPerWriter = 500;
+        final int rounds = 20;
+        ConcurrentDictionary d = new ConcurrentDictionary(new TokenScanner(new StringReader("apple banana cherry\n")));
+        ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+        CyclicBarrier start = new CyclicBarrier(writers + readers);
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        for (int round = 0; round < rounds; round++) {
+                            for (int i = 0; i < wordsPerWriter; i++) assertTrue(d.addWord(writerWord(writer, i), i));
+                            for (int i = 0; i < wordsPerWriter; i++) {
+                                //una palabra propia recien agregada tiene que verse enseguida en este thread
+                                assertTrue(d.isWord(writerWord(writer, i)));
+                                assertTrue(d.getWordsWithinDistance(writerWord(writer, i), 0).contains(writerWord(writer, i)));
+                            }
+                            //en la ultima ronda se dejan las pares
+                            for (int i = round == rounds - 1 ? 1 : 0; i < wordsPerWriter; i += round == rounds - 1 ? 2 : 1) {
+                                assertTrue(d.removeWord(writerWord(writer, i)));
+                            }
+                        }
+                    } finally {
+                        writersDone.countDown();
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < readers; r++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long reads = 0;
+                    while (running.get()) {
+                        assertTrue(d.isWord("banana"));
+                        assertTrue(d.getWordsWithinDistance("banan", 1).contains("banana"));
+                        int n = d.getNumWords();
+                        assertTrue(n >= 3 && n <= 3 + writers * wordsPerWriter);
+                        Set<String> found = d.filterBy(word -> word.startsWith("w") ? 1 : 0);
+                        assertTrue(found.size() <= writers * wordsPerWriter);
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+            assertTrue(writersDone.await(25, TimeUnit.SECONDS));
+            running.set(false);
+            for (Future<?> f: futures) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(3 + writers * wordsPerWriter / 2, d.getNumWords());
+        assertEquals(d.getNumWords(), d.filterBy(word -> 1).size());
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < wordsPerWriter; i++) {
+                boolean expected = i % 2 == 0;
+                assertEquals(expected, d.isWord(writerWord(w, i)));
+                assertEquals(expected, d.getWordsWithinDistance(writerWord(w, i), 0).contains(writerWord(w, i)));
+                assertEquals(expected ? i : 0, d.getFrequency(writerWord(w, i)));
+            }
+        }
+    }
+
+
+    private static String http(String method, URL url, String body, int expectedStatus) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod(method);
+        if (body != null) {
+            conn.setDoOutput(true);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(expectedStatus, conn.getResponseCode());
+        if (expectedStatus != 200) return null;
+        try (Scanner in = new Scanner(conn.getInputStream(), "UTF-8")) {
+            return in.useDelimiter("\\A").hasNext() ? in.next() : "";
+        }
+    }
+
+    /**
+     * El servidor responde /check y /suggest en localhost y registra la latencia de cada pedido.
+     */
+    @Test
+    public void testSpellCheckServer() throws IOException {
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader("the\t10 then\t5 table thin")));
+        try (SpellCheckServer server = new SpellCheckServer(dict, new Levenshtein(dict, true),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+
+            assertEquals("1\tteh\tthe\n2\tTabel\tTable\n2\tqqq\t\n", http("POST", new URL(base + "/check"), "teh table\nTabel. qqq", 200));
+            assertEquals("thn\tthe,then,thin\n", http("POST", new URL(base + "/suggest"), "thn", 200));
+            assertEquals("thn\tthe\ntablr\ttable\n", http("POST", new URL(base + "/suggest?k=1"), "thn tablr", 200));
+            http("POST", new URL(base + "/suggest?k=0"), "thn", 400);
+            http("GET", new URL(base + "/check"), null, 405);
+
+            assertEquals(5, server.getLatencies("/check").getCount() + server.getLatencies("/suggest").getCount());
+            assertTrue(http("GET", new URL(base + "/stats"), null, 200).startsWith("/check count=2 p50="));
+        }
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        Histogram h = new Histogram("us");
+        assertEquals(0, h.getPercentile(99));
+        for (int i = 1; i <= 1000; i++) h.record(i);
+        assertEquals(1000, h.getCount());
+        assertEquals(1000, h.getMax());
+        //cada bucket cubre a lo sumo 12,5% de su valor
+        assertTrue(h.getPercentile(50) >= 500 && h.getPercentile(50) <= 500 * 1.125);
+        assertTrue(h.getPercentile(99) >= 990 && h.getPercentile(99) <= 1000);
+        assertEquals(1000, h.getPercentile(100));
+    }
+
+
+    /**
+     * El snapshot se escribe en el primer arranque y se usa en el siguiente; si el texto cambia o el
+     * snapshot esta corrupto se vuelve a leer el texto.
+     */
+    @Test
+    public void testDictionarySnapshot() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        Path source = dir.resolve("words.txt");
+        Path snapshot = dir.resolve("words.snap");
+        Files.write(source, "the\t10\nthen\t5\ntable\nthin\n".getBytes());
+
+        CompactTrieDictionary built = DictionarySnapshot.load(source, snapshot);
+        assertTrue(Files.exists(snapshot));
+        CompactTrieDictionary loaded = DictionarySnapshot.read(snapshot, source);
+        assertEquals(built.getNumWords(), loaded.getNumWords());
+        assertEquals(built.filterBy(w -> 1), loaded.filterBy(w -> 1));
+        assertEquals(10, loaded.getFrequency("the"));
+        assertEquals(0, loaded.getFrequency("table"));
+        assertEquals(new HashSet<>(Arrays.asList("the", "then", "thin")), loaded.getWordsWithinDistance("thn", 1));
+
+        //el texto cambio: el snapshot queda viejo y se reconstruye
+        Files.write(source, "the\nchair\n".getBytes());
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 2000));
+        try {
+            DictionarySnapshot.read(snapshot, source);
+            fail("El snapshot deberia estar viejo");
+        } catch (DictionarySnapshot.InvalidSnapshotException e) {
+            //se espera
+        }
+        assertTrue(DictionarySnapshot.load(source, snapshot).isWord("chair"));
+        assertTrue(DictionarySnapshot.read(snapshot, source).isWord("chair"));
+
+        //un byte cambiado no pasa el checksum
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+        try {
+            DictionarySnapshot.read(snapshot, null);
+            fail("El checksum deberia fallar");
+        } catch (DictionarySnapshot.InvalidSnapshotException e) {
+            //se espera
+        }
+        CompactTrieDictionary rebuilt = DictionarySnapshot.load(source, snapshot);
+        assertEquals(2, rebuilt.getNumWords());
+        assertEquals(2, DictionarySnapshot.read(snapshot, source).getNumWords());
+    }
+
+
+    /**
+     * Las consultas paralelas por shards dan lo mismo que las secuenciales, incluidas las palabras mas cortas
+     * que la profundidad de corte.
+     */
+    @Test
+    public void testParallelScan() throws IOException {
+        List<String> words = new ArrayList<>(SyntheticCorpus.words(5000, 3));
+        words.addAll(Arrays.asList("a", "an", "ox", "the"));
+        String source = SyntheticCorpus.lines(words);
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader(source)), 0);
+        TrieDictionary trie = new TrieDictionary(new TokenScanner(new StringReader(source)));
+        CompactTrieDictionary compact = new CompactTrieDictionary(new TokenScanner(new StringReader(source)));
+
+        Function<String, Integer> shortOrA = w -> w.length() < 4 || w.startsWith("ba") ? 1 : 0;
+        Set<String> expected = dict.filterBy(shortOrA);
+        Set<String> near = dict.getWordsWithinDistance("bacota", 2);
+        assertTrue(expected.containsAll(Arrays.asList("a", "an", "ox", "the")));
+
+        dict.setParallelThreshold(0);
+        trie.setParallelThreshold(0);
+        compact.setParallelThreshold(0);
+        assertEquals(expected, dict.filterBy(shortOrA));
+        assertEquals(expected, trie.filterBy(shortOrA));
+        assertEquals(expected, compact.filterBy(shortOrA));
+        assertEquals(near, dict.getWordsWithinDistance("bacota", 2));
+        assertEquals(near, trie.getWordsWithinDistance("bacota", 2));
+        assertEquals(near, compact.getWordsWithinDistance("bacota", 2));
+        assertEquals(new HashSet<>(Arrays.asList("a", "ox")), trie.getWordsWithinDistance("o", 1));
+    }
+
+    /**
+     * forEachWord entrega cada palabra una vez, sobre un buffer compartido que hay que copiar para guardarla.
+     */
+    @Test
+    public void testTrieForEachWord() {
+        List<String> words = Arrays.asList("a", "an", "ant", "anthem", "be", "bee", "zebra");
+        Trie trie = new Trie();
+        CompactTrie compact = new CompactTrie();
+        for (String w: words) {
+            trie.insert(w);
+            compact.insert(w);
+        }
+        List<String> visited = new ArrayList<>();
+        trie.forEachWord(w -> visited.add(w.toString()));
+        assertEquals(new HashSet<>(words), new HashSet<>(visited));
+        assertEquals(words.size(), visited.size());
+
+        List<String> compactVisited = new ArrayList<>();
+        compact.forEachWord(w -> compactVisited.add(w.toString()));
+        assertEquals(words, compactVisited); //los hermanos estan ordenados
+
+        int[] longWords = new int[1];
+        trie.forEachWord(w -> {
+            if (w.length() > 3 && w.charAt(0) == 'a') longWords[0]++;
+        });
+        assertEquals(1, longWords[0]);
+        assertEquals(new HashSet<>(Arrays.asList("ant", "bee")), trie.filterBy(w -> w.length() == 3 ? 1 : 0));
+    }
+
+
+    /**
+     * La tabla compacta mantiene la normalizacion del archivo (sin blancos, en minusculas) y junta las
+     * correcciones de una palabra aunque aparezca con distintas mayusculas.
+     */
+    @Test
+    public void testFileCorrectorCompactTable() throws IOException, FileCorrector.FormatException {
+        FileCorrector fc = new FileCorrector(new StringReader(
+                "ther,their\r\n  Ther , There\r\nTHER,their\nbaloon,Balloon\n\tbalon ,balloon\ninspite,in spite"));
+        assertEquals(new TreeSet<>(Arrays.asList("their", "there")), fc.getCorrections("ther"));
+        assertEquals(new TreeSet<>(Arrays.asList("Their", "There")), fc.getCorrections("Ther"));
+        assertEquals(new TreeSet<>(Arrays.asList("Balloon")), fc.getCorrections("BALON"));
+        assertEquals(new TreeSet<>(Arrays.asList("balloon")), fc.getCorrections("baloon"));
+        assertEquals(new TreeSet<>(Arrays.asList("inspite")), fc.getCorrections("inspite"));
+        assertTrue(fc.getCorrections("the").isEmpty());
+
+        for (String bad: Arrays.asList("no comma", ",correct", "wrong,", "wrong,correct,", "a,b\n\nc,d")) {
+            try {
+                new FileCorrector(new StringReader(bad));
+                fail("Formato invalido: " + bad);
+            } catch (FileCorrector.FormatException e) {
+                //se espera
+            }
+        }
+    }
+
+    /**
+     * Con las metricas habilitadas cada etapa suma lo suyo y se ve por JMX; deshabilitadas no se mide nada.
+     */
+    @Test
+    public void testMetrics() throws Exception {
+        IDictionary dict = new Dictionary(new TokenScanner(new StringReader("the table is red")));
+        Metrics.setEnabled(true);
+        try {
+            Metrics.reset();
+            SpellChecker checker = new SpellChecker(MeteredCorrector.wrap(new SwapCorrector(dict)), MeteredDictionary.wrap(dict));
+            StringWriter out = new StringWriter();
+            checker.checkDocument(new StringReader("Teh tabel is red."), new ByteArrayInputStream(new byte[0]), out);
+            assertEquals("The table is red.", out.toString());
+
+            assertEquals(8, Metrics.counter("tokenizer.tokens").get());
+            assertEquals(17, Metrics.counter("tokenizer.chars").get());
+            assertEquals(8, Metrics.counter("spellchecker.tokens").get());
+            assertEquals(4, Metrics.counter("spellchecker.words").get());
+            assertEquals(2, Metrics.counter("spellchecker.unknown").get());
+            assertEquals(4, Metrics.counter("dictionary.Dictionary.lookups").get());
+            assertEquals(2, Metrics.counter("corrector.SwapCorrector.queries").get());
+            assertEquals(2, Metrics.latency("corrector.SwapCorrector.latency").getCount());
+            assertEquals(0.5, Metrics.values().get("spellchecker.unknownRate").doubleValue(), 1e-9);
+            assertTrue(Metrics.dump().contains("corrector.SwapCorrector.latency count=2 p50="));
+
+            assertTrue(Metrics.registerMBean());
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+            assertEquals(8L, server.getAttribute(name, "spellchecker.tokens"));
+            assertEquals(2L, server.getAttribute(name, "corrector.SwapCorrector.latency.count"));
+
+            Metrics.setEnabled(false);
+            new SpellChecker(MeteredCorrector.wrap(new SwapCorrector(dict)), MeteredDictionary.wrap(dict)).checkDocument(new StringReader("Teh tabel"),
+                    new ByteArrayInputStream(new byte[0]), new StringWriter());
+            assertEquals(8, Metrics.counter("spellchecker.tokens").get());
+            assertEquals(2, Metrics.counter("corrector.SwapCorrector.queries").get());
+        } finally {
+            Metrics.setEnabled(false);
+            Metrics.reset();
+        }
+    }
+
+    /**
+     * El loader paralelo corta el archivo en varias partes y carga lo mismo que el TokenScanner secuencial,
+     * frecuencias incluidas.
+     */
+    @Test
+    public void testDictionaryLoader() throws IOException {
+        List<String> words = SyntheticCorpus.words(20000, 7);
+        StringBuilder sb = new StringBuilder();
+        Random random = new Random(7);
+        //las mismas palabras varias veces, en mayusculas y con frecuencias, para que se repitan entre partes
+        while (sb.length() < 3 * DictionaryLoader.MIN_CHUNK_BYTES + 1000) {
+            String word = words.get(random.nextInt(words.size()));
+            sb.append(random.nextBoolean() ? word : word.toUpperCase());
+            if (random.nextInt(4) == 0) sb.append('\t').append(random.nextInt(100));
+            sb.append(random.nextInt(10) == 0 ? " 12x\r\n" : "\n");
+        }
+        String text = sb.toString();
+        Path file = Files.createTempFile("words", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+        Dictionary expected = new Dictionary(new TokenScanner(new StringReader(text)));
+        Dictionary loaded = DictionaryLoader.loadDictionary(file, StandardCharsets.UTF_8, 1);
+        TrieDictionary trie = DictionaryLoader.loadTrieDictionary(file, StandardCharsets.UTF_8);
+        assertEquals(expected.getNumWords(), loaded.getNumWords());
+        assertEquals(expected.getNumWords(), trie.getNumWords());
+        for (String word: words) {
+            assertEquals(word, expected.isWord(word), loaded.isWord(word));
+            assertEquals(word, expected.isWord(word), trie.isWord(word));
+            assertEquals(word, expected.getFrequency(word), loaded.getFrequency(word));
+            assertEquals(word, expected.getFrequency(word), trie.getFrequency(word));
+        }
+        assertEquals(expected.getWordsWithinDistance("hola", 1), loaded.getWordsWithinDistance("hola", 1));
+
+        //en UTF-16 no se corta, pero carga igual
+        Files.write(file, "Hola\t3\nmundo\n".getBytes(StandardCharsets.UTF_16));
+        Dictionary utf16 = DictionaryLoader.loadDictionary(file, StandardCharsets.UTF_16, 1);
+        assertEquals(2, utf16.getNumWords());
+        assertEquals(3, utf16.getFrequency("hola"));
+    }
+
+    @Test
+    public void testTrieMerge() {
+        Trie a = new Trie();
+        a.insert("ab");
+        a.insert("abc");
+        Trie b = new Trie();
+        b.insert("abc");
+        b.insert("abd");
+        b.insert("a");
+        b.insert("x");
+        a.merge(b);
+        assertEquals(5, a.getNumWords());
+        for (String word: new String[] {"a", "ab", "abc", "abd", "x"}) assertTrue(word, a.search(word));
+        assertFalse(a.search("abx"));
+    }
+
+    @Test
+    public void testWordNormalizer() throws IOException {
+        WordNormalizer lower = WordNormalizer.of(WordNormalizer.Form.LOWER_CASE);
+        WordNormalizer nfc = WordNormalizer.of(WordNormalizer.Form.NFC);
+        WordNormalizer fold = WordNormalizer.of(WordNormalizer.Form.FOLD_ACCENTS);
+        String word = "canci\u00f3n";
+        assertSame(word, lower.normalize(word));
+        assertSame(word, nfc.normalize(word));
+        assertEquals("canci\u00f3n", lower.normalize("CANCI\u00d3N"));
+        assertEquals("cancion", fold.normalize("Canci\u00f3n"));
+        //acento combinado (NFD)
+        assertEquals("canci\u00f3n", nfc.normalize("cancio\u0301n"));
+        assertEquals("cancion", fold.normalize("cancio\u0301n"));
+        assertEquals("cancio\u0301n", lower.normalize("cancio\u0301n"));
+        assertEquals("hello".hashCode(), lower.hash("Hello"));
+        assertTrue(lower.equalsNormalized("hello", "HeLLo"));
+
+        String text = "Canci\u00f3n\nping\u00fcino\nHola\n";
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader(text)), 1, fold);
+        TrieDictionary trie = new TrieDictionary(new TokenScanner(new StringReader(text)), fold);
+        CompactTrieDictionary compact = new CompactTrieDictionary(new TokenScanner(new StringReader(text)), fold);
+        for (IDictionary d: new IDictionary[] {dict, trie, compact}) {
+            assertSame(fold, d.getNormalizer());
+            assertTrue(d.isWord("cancion"));
+            assertTrue(d.isWord("CANCI\u00d3N"));
+            assertTrue(d.isWord("cancio\u0301n"));
+            assertTrue(d.isWord("pinguino"));
+            assertTrue(d.isWord("hOLA"));
+            assertFalse(d.isWord("canci"));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("cancion")), new Levenshtein(dict).getCorrections("canci\u00f3m"));
+
+        //longestPrefixLength normaliza el texto igual que isWord
+        assertEquals(7, trie.longestPrefixLength("Canci\u00f3nHola", 0));
+        assertEquals(7, compact.longestPrefixLength("Canci\u00f3nHola", 0));
+        assertEquals(4, trie.longestPrefixLength("Canci\u00f3nHOLA!", 7));
+        assertEquals(4, compact.longestPrefixLength("Canci\u00f3nHOLA!", 7));
+        assertEquals(-1, trie.longestPrefixLength("Canci", 0));
+
+        //con la forma por defecto los acentos importan
+        Dictionary plain = new Dictionary(new TokenScanner(new StringReader(text)));
+        assertTrue(plain.isWord("Canci\u00f3n"));
+        assertFalse(plain.isWord("cancion"));
+
+        //el tokenizer no corta las palabras en los acentos combinados
+        TokenScanner ts = new TokenScanner(new StringReader("cancio\u0301n \u0301x"));
+        assertEquals("cancio\u0301n", ts.next());
+        assertEquals(" ", ts.next());
+        assertFalse(TokenScanner.isWord(ts.next()));
+    }
+
+    @Test
+    public void testLengthIndexFilterBy() throws IOException {
+        List<String> words = SyntheticCorpus.words(3000, 11);
+        StringBuilder sb = new StringBuilder();
+        for (String word: words) sb.append(word).append('\n');
+        String text = sb.toString();
+        IDictionary[] dictionaries = {
+                new Dictionary(new TokenScanner(new StringReader(text))),
+                new TrieDictionary(new TokenScanner(new StringReader(text))),
+                new CompactTrieDictionary(new TokenScanner(new StringReader(text))),
+                new ConcurrentDictionary(new TokenScanner(new StringReader(text)))
+        };
+        for (String query: Arrays.asList(words.get(0), words.get(17), "xq", "")) {
+            for (int distance = 1; distance <= 2; distance++) {
+                int d = distance;
+                Function<String, Integer> f = w -> LevenshteinImpl.levenshteinDistance(query, w, d) <= d ? 1 : 0;
+                Set<String> expected = dictionaries[0].filterBy(f);
+                for (IDictionary dict: dictionaries) {
+                    assertEquals(query, expected, dict.filterBy(query.length() - d, query.length() + d,
+                            LengthIndex.signature(query), LengthIndex.signatureBound(d), f));
+                    assertEquals(query, expected, dict.getWordsWithinDistance(query, d));
+                }
+            }
+        }
+        //solo por largo
+        Set<String> five = dictionaries[0].filterBy(w -> w.length() == 5 ? 1 : 0);
+        for (IDictionary dict: dictionaries) {
+            assertEquals(five, dict.filterBy(5, 5, 0, LengthIndex.ANY_SIGNATURE, w -> 1));
+        }
+        assertEquals(0, LengthIndex.signatureDistance(LengthIndex.signature("hola"), LengthIndex.signature("ohla")));
+        assertEquals(2, LengthIndex.signatureDistance(LengthIndex.signature("hola"), LengthIndex.signature("hora")));
+    }
+
+    @Test
+    public void testNGramCorrector() throws IOException {
+        List<String> words = SyntheticCorpus.words(5000, 13);
+        Dictionary dict = new Dictionary(new TokenScanner(new StringReader(SyntheticCorpus.lines(words))));
+        NGramCorrector corrector = new NGramCorrector(dict);
+        assertEquals(NGramCorrector.DEFAULT_MAX_DISTANCE, corrector.getMaxDistance());
+        //mismas sugerencias que recorrer el diccionario a distancia 2, tambien con las palabras cortas
+        for (String query: SyntheticCorpus.queries(words, 200, 0.8, 5)) {
+            Set<String> expected = dict.getWordsWithinDistance(query, 2);
+            expected.remove(query);
+            assertEquals(query, new TreeSet<>(expected), corrector.getCorrections(query));
+        }
+        assertEquals(new TreeSet<>(), corrector.getCorrections("x"));
+
+        Dictionary small = new Dictionary(new TokenScanner(new StringReader("ortografia\nortografico\ncaligrafia\nfotografia\n")));
+        NGramCorrector two = new NGramCorrector(small, 2);
+        assertEquals(new TreeSet<>(Arrays.asList("Ortografia", "Ortografico")), two.getCorrections("Ortogrfica"));
+        assertEquals(Arrays.asList("ortografia", "ortografico"), two.getTopCorrections("ortografic", 2));
+        assertEquals(new TreeSet<>(Arrays.asList("ortografia")), new NGramCorrector(small, 1).getCorrections("ortogrfia"));
+    }
+
 }
\ No newline at end of file